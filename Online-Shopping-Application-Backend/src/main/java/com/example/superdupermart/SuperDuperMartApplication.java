@@ -4,11 +4,13 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(exclude = {
     HibernateJpaAutoConfiguration.class,
     DataSourceTransactionManagerAutoConfiguration.class
 })
+@EnableScheduling
 public class SuperDuperMartApplication {
 
     public static void main(String[] args) {
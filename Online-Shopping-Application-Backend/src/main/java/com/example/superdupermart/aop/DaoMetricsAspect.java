@@ -0,0 +1,45 @@
+package com.example.superdupermart.aop;
+
+import com.example.superdupermart.metrics.LatencyHistogram;
+import com.example.superdupermart.metrics.MetricsRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DAO 层耗时：按具体 DAO 类 + 方法名（如 OrderDao.findById）记入直方图
+ * 继承自 AbstractHibernateDao 的方法按子类区分
+ */
+@Aspect
+@Component
+public class DaoMetricsAspect {
+
+    static final String DAO_DURATION = "dao_method_seconds";
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    @Around("execution(* com.example.superdupermart.dao.AbstractHibernateDao+.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        String key = joinPoint.getTarget().getClass().getSimpleName() + "." + joinPoint.getSignature().getName();
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            LatencyHistogram h = histograms.get(key);
+            if (h == null) {
+                h = histograms.computeIfAbsent(key, k -> metricsRegistry.histogram(DAO_DURATION,
+                        "DAO method latency", "method", k));
+            }
+            h.recordNanos(elapsed);
+        }
+    }
+}
@@ -1,19 +1,52 @@
 package com.example.superdupermart.aop;
 
-import org.aspectj.lang.JoinPoint;
+import com.example.superdupermart.metrics.LatencyHistogram;
+import com.example.superdupermart.metrics.MetricsRegistry;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.*;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.proxy.HibernateProxy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import java.util.Arrays;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 控制器与服务层埋点：
+ * - 耗时用 System.nanoTime 记入每个方法的直方图（同时经 MetricsRegistry 导出），按固定周期输出汇总，而不是每次调用一行日志
+ * - 入参/返回值日志按采样率输出，且只渲染简单类型，实体、集合只输出类型与大小，不会触发懒加载
+ * - 日志经 logback-spring.xml 中的 AsyncAppender 异步写出，队列满时丢弃而不阻塞业务线程
+ */
 @Aspect
 @Component
 public class LoggingAspect {
 
     private final Logger logger = LoggerFactory.getLogger(LoggingAspect.class);
 
+    static final String METHOD_DURATION = "app_method_seconds";
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    @Value("${app.logging.sample-rate:0.01}")
+    private double sampleRate;
+
+    @Value("${app.logging.max-arg-length:100}")
+    private int maxArgLength;
+
+    @Value("${app.logging.max-message-length:512}")
+    private int maxMessageLength;
+
     /**
      * 定义切点：匹配所有 controller 层的方法
      */
@@ -27,44 +60,98 @@ public class LoggingAspect {
     public void serviceMethods() {}
 
     /**
-     * 在方法执行前打印日志
+     * 计时并按采样率记录入参与返回；异常始终记录
      */
-    @Before("controllerMethods() || serviceMethods()")
-    public void logBefore(JoinPoint joinPoint) {
-        logger.info("➡️ Entering: {} | Args: {}",
-                joinPoint.getSignature().toShortString(),
-                Arrays.toString(joinPoint.getArgs()));
+    @Around("controllerMethods() || serviceMethods()")
+    public Object instrument(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().toShortString();
+        boolean sampled = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        if (sampled && logger.isInfoEnabled()) {
+            logger.info("➡️ Entering: {} | Args: {}", method, renderArgs(joinPoint.getArgs()));
+        }
+
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            long elapsed = System.nanoTime() - start;
+            histogram(method).recordNanos(elapsed);
+            if (sampled && logger.isInfoEnabled()) {
+                logger.info("✅ Exiting: {} | Return: {} | {} µs", method, render(result), elapsed / 1000);
+            }
+            return result;
+        } catch (Throwable exception) {
+            histogram(method).recordNanos(System.nanoTime() - start);
+            logger.error("❌ Exception in: {} | Message: {}", method, exception.getMessage(), exception);
+            throw exception;
+        }
     }
 
     /**
-     * 在方法执行成功后打印日志
+     * 周期性输出各方法的耗时分布
      */
-    @AfterReturning(pointcut = "controllerMethods() || serviceMethods()", returning = "result")
-    public void logAfter(JoinPoint joinPoint, Object result) {
-        logger.info("✅ Exiting: {} | Return: {}",
-                joinPoint.getSignature().toShortString(),
-                result);
+    @Scheduled(fixedDelayString = "${app.logging.summary-interval-ms:60000}")
+    public void logSummary() {
+        if (!logger.isInfoEnabled()) return;
+        histograms.forEach((method, h) -> {
+            if (h.getCount() == 0) return;
+            logger.info("⏱️ {} | count={} p50={}µs p99={}µs max={}µs", method, h.getCount(),
+                    h.getPercentileMicros(50), h.getPercentileMicros(99), h.getMaxMicros());
+        });
     }
 
     /**
-     * 在方法抛出异常时打印错误日志
+     * 各方法的耗时直方图（只读视图）
      */
-    @AfterThrowing(pointcut = "controllerMethods() || serviceMethods()", throwing = "exception")
-    public void logException(JoinPoint joinPoint, Throwable exception) {
-        logger.error("❌ Exception in: {} | Message: {}",
-                joinPoint.getSignature().toShortString(),
-                exception.getMessage(), exception);
+    public Map<String, LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+
+    private LatencyHistogram histogram(String method) {
+        LatencyHistogram h = histograms.get(method);
+        return h != null ? h : histograms.computeIfAbsent(method,
+                k -> metricsRegistry.histogram(METHOD_DURATION, "Controller and service method latency", "method", k));
+    }
+
+    private String renderArgs(Object[] args) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < args.length && sb.length() < maxMessageLength; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(render(args[i]));
+        }
+        if (sb.length() > maxMessageLength) {
+            sb.setLength(maxMessageLength);
+            sb.append("...");
+        }
+        return sb.append("]").toString();
     }
 
     /**
-     * 计算方法执行时间
+     * 只对简单类型调用 toString；其余对象只输出类型（集合附带大小），避免序列化大对象或触发懒加载
      */
-    @Around("controllerMethods() || serviceMethods()")
-    public Object logExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
-        long start = System.currentTimeMillis();
-        Object result = joinPoint.proceed();
-        long duration = System.currentTimeMillis() - start;
-        logger.info("⏱️ Executed {} in {} ms", joinPoint.getSignature().toShortString(), duration);
-        return result;
+    private String render(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof HibernateProxy) {
+            return ((HibernateProxy) value).getHibernateLazyInitializer().getEntityName() + "(proxy)";
+        }
+        if (value instanceof CharSequence || value instanceof Number
+                || value instanceof Boolean || value instanceof Enum) {
+            return truncate(String.valueOf(value));
+        }
+        if (value instanceof PersistentCollection && !((PersistentCollection) value).wasInitialized()) {
+            return value.getClass().getSimpleName() + "[uninitialized]";
+        }
+        if (value instanceof Collection) {
+            return value.getClass().getSimpleName() + "[size=" + ((Collection<?>) value).size() + "]";
+        }
+        if (value instanceof Map) {
+            return value.getClass().getSimpleName() + "[size=" + ((Map<?, ?>) value).size() + "]";
+        }
+        return value.getClass().getSimpleName();
+    }
+
+    private String truncate(String s) {
+        return s.length() <= maxArgLength ? s : s.substring(0, maxArgLength) + "...";
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,8 @@
 package com.example.superdupermart.config;
 
+import com.example.superdupermart.metrics.MetricsRegistry;
+import com.example.superdupermart.metrics.SqlStatementCounter;
+import com.example.superdupermart.metrics.TimedHibernateTransactionManager;
 import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -23,6 +26,9 @@ public class HibernateConfig {
     @Autowired(required = false)
     private HibernateProperty hibernateProperty;
 
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
     @Bean
     public LocalSessionFactoryBean sessionFactory() {
         LocalSessionFactoryBean sessionFactory = new LocalSessionFactoryBean();
@@ -63,6 +69,22 @@ public class HibernateConfig {
                 : "update");
         // 配置当前会话上下文，确保事务同步
         props.put("hibernate.current_session_context_class", "org.springframework.orm.hibernate5.SpringSessionContext");
+        // JDBC 批量：按实体排序插入/更新，使同表语句合并成批
+        props.put("hibernate.jdbc.batch_size", 50);
+        props.put("hibernate.order_inserts", true);
+        props.put("hibernate.order_updates", true);
+        // 表生成器取到的值即本块的起始 id（IdGeneratorDao 按现有最大 id 初始化）
+        props.put("hibernate.id.optimizer.pooled.preferred", "pooled-lo");
+        // 二级缓存（Caffeine 本地 JCache），区域配置见 application.conf；未配置的区域启动即报错，避免无界缓存
+        props.put("hibernate.cache.use_second_level_cache", true);
+        props.put("hibernate.cache.use_query_cache", true);
+        props.put("hibernate.cache.region.factory_class", "jcache");
+        props.put("hibernate.javax.cache.provider", "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider");
+        props.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+        // 命中/未命中统计，经 HibernateCacheMetrics 导出到 /actuator/prometheus
+        props.put("hibernate.generate_statistics", true);
+        // 统计每个请求发出的 SQL 条数
+        props.put("hibernate.session_factory.statement_inspector", new SqlStatementCounter());
         return props;
     }
 
@@ -70,7 +92,8 @@ public class HibernateConfig {
     @Primary
     @DependsOn("hibernateSessionFactory")
     public HibernateTransactionManager transactionManager(SessionFactory sessionFactory) {
-        HibernateTransactionManager transactionManager = new HibernateTransactionManager();
+        // 记录事务耗时
+        HibernateTransactionManager transactionManager = new TimedHibernateTransactionManager(metricsRegistry);
         transactionManager.setSessionFactory(sessionFactory);
         transactionManager.setNestedTransactionAllowed(true);
         return transactionManager;
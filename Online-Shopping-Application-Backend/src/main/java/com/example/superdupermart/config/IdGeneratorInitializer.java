@@ -0,0 +1,21 @@
+package com.example.superdupermart.config;
+
+import com.example.superdupermart.dao.IdGeneratorDao;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 在 Web 服务开始接收请求之前对齐主键生成器，避免第一次插入就与旧数据主键冲突
+ */
+@Component
+public class IdGeneratorInitializer implements SmartInitializingSingleton {
+
+    @Autowired
+    private IdGeneratorDao idGeneratorDao;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        idGeneratorDao.alignWithExistingRows();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.superdupermart.config;
+
+import com.example.superdupermart.notification.InMemoryNotificationSink;
+import com.example.superdupermart.notification.NotificationSink;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class NotificationConfig {
+
+    /**
+     * 收藏通知的投递方式；app.notifications.sink 为 memory（默认）时使用进程内实现，接入邮件/推送时换成其他 NotificationSink
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.notifications.sink", havingValue = "memory", matchIfMissing = true)
+    public NotificationSink inMemoryNotificationSink() {
+        return new InMemoryNotificationSink();
+    }
+}
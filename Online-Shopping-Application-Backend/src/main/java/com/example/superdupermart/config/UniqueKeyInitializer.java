@@ -0,0 +1,43 @@
+package com.example.superdupermart.config;
+
+import com.example.superdupermart.dao.UniqueKeyDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 在 Web 服务开始接收请求之前合并旧数据中的重复行并确认唯一约束存在
+ * 购物车、购物项的 upsert 和收藏的 INSERT IGNORE 依赖这些约束，约束缺失时 ON DUPLICATE KEY / IGNORE 永远不会触发，只会继续插入重复行
+ */
+@Component
+public class UniqueKeyInitializer implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(UniqueKeyInitializer.class);
+
+    @Autowired
+    private UniqueKeyDao uniqueKeyDao;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int users = uniqueKeyDao.mergeDuplicateCarts();
+        if (users > 0) {
+            logger.warn("Merged duplicate carts / cart items of {} users", users);
+        }
+        ensure("carts", "uk_carts_user", "user_id");
+        ensure("cart_items", "uk_cart_items_cart_product", "cart_id, product_id");
+
+        int watchlists = uniqueKeyDao.deleteDuplicateWatchlists();
+        if (watchlists > 0) {
+            logger.warn("Deleted {} duplicate watchlist rows", watchlists);
+        }
+        ensure("watchlists", "uk_watchlists_user_product", "user_id, product_id");
+    }
+
+    private void ensure(String table, String name, String columns) {
+        if (uniqueKeyDao.ensureUniqueKey(table, name, columns)) {
+            logger.warn("Created missing unique key {} on {}({})", name, table, columns);
+        }
+    }
+}
@@ -1,31 +1,36 @@
 package com.example.superdupermart.controller;
 
 import com.example.superdupermart.dao.UserDao;
-import com.example.superdupermart.dto.OrderItemDTO;
+import com.example.superdupermart.dto.OrderPageDTO;
 import com.example.superdupermart.dto.OrderResponseDTO;
 import com.example.superdupermart.dto.ProductDTO;
-import com.example.superdupermart.entity.Order;
-import com.example.superdupermart.entity.OrderItem;
 import com.example.superdupermart.entity.Product;
 import com.example.superdupermart.entity.User;
 import com.example.superdupermart.service.OrderService;
+import com.example.superdupermart.service.StatsService;
 import com.example.superdupermart.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/admin")
 public class AdminController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private UserService userService;
     @Autowired
     private OrderService orderService;
     @Autowired
     private UserDao userDao;
+    @Autowired
+    private StatsService statsService;
 
     @GetMapping("/users")
     public List<User> getAllUsers() {
@@ -38,9 +43,15 @@ public class AdminController {
         return "User deleted successfully.";
     }
 
+    // GET /admin/orders?after=&limit=&status=&from=&to= （按下单时间倒序的游标分页）
     @GetMapping("/orders")
-    public List<OrderResponseDTO> getAllOrders() {
-        return orderService.getAllOrders().stream().map(this::toOrderDTO).collect(Collectors.toList());
+    public OrderPageDTO getAllOrders(@RequestParam(required = false) Long after,
+                                     @RequestParam(required = false) Integer limit,
+                                     @RequestParam(required = false) String status,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return orderService.getOrderPage(after, pageSize, status, from, to);
     }
 
     @PutMapping("/updateOrderStatus/{orderId}")
@@ -49,26 +60,15 @@ public class AdminController {
         return "Order status updated to " + status + ".";
     }
 
-    private OrderResponseDTO toOrderDTO(Order o) {
-        OrderResponseDTO dto = new OrderResponseDTO();
-        dto.setOrderId(o.getOrderId());
-        dto.setDatePlaced(o.getDatePlaced());
-        dto.setOrderStatus(o.getOrderStatus());
-        double total = o.getOrderItems().stream()
-                .mapToDouble(i -> (i.getProduct().getRetailPrice() == null ? 0.0 : i.getProduct().getRetailPrice().doubleValue()) * i.getQuantity())
-                .sum();
-        dto.setTotalPrice(total);
-        dto.setItems(o.getOrderItems().stream().map(this::toItemDTO).collect(Collectors.toList()));
-        return dto;
+    @GetMapping("/stats/unitsSold")
+    public long getTotalUnitsSold() {
+        return statsService.getTotalUnitsSold();
     }
 
-    private OrderItemDTO toItemDTO(OrderItem oi) {
-        OrderItemDTO dto = new OrderItemDTO();
-        dto.setProductId(oi.getProduct().getProductId());
-        dto.setProductName(oi.getProduct().getName());
-        dto.setQuantity(oi.getQuantity());
-        dto.setPrice(oi.getProduct().getRetailPrice() == null ? 0.0 : oi.getProduct().getRetailPrice().doubleValue());
-        return dto;
+    @PostMapping("/stats/rebuild")
+    public String rebuildStats() {
+        statsService.rebuildSalesAggregates();
+        return "Sales statistics rebuilt.";
     }
 
     private ProductDTO toProductDTO(Product p) {
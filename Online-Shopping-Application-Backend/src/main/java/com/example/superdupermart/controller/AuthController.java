@@ -43,7 +43,7 @@ public class AuthController {
         String role = user != null ? user.getRole() : "USER";
         
         Map<String, Object> resp = new HashMap<>();
-        String token = jwtTokenUtil.generateToken(email, role);
+        String token = jwtTokenUtil.generateToken(user != null ? user.getUserId() : null, email, role);
         resp.put("message", "Login successful");
         resp.put("token", token);
         resp.put("role", role);
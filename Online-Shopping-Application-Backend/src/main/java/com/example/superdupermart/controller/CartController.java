@@ -1,19 +1,14 @@
 package com.example.superdupermart.controller;
 
-import com.example.superdupermart.dto.CartItemDTO;
+import com.example.superdupermart.dto.CartLineOperationDTO;
 import com.example.superdupermart.dto.CartResponseDTO;
-import com.example.superdupermart.entity.CartItem;
-import com.example.superdupermart.entity.Product;
-import com.example.superdupermart.entity.User;
-import com.example.superdupermart.service.AuthService;
+import com.example.superdupermart.dto.CartSyncRequestDTO;
+import com.example.superdupermart.security.OwnerOnly;
 import com.example.superdupermart.service.CartService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/cart")
@@ -21,91 +16,59 @@ public class CartController {
 
     @Autowired
     private CartService cartService;
-    @Autowired
-    private AuthService authService;
-
-    /**
-     * 验证用户是否有权限访问该 userId 的购物车
-     */
-    private void validateUserAccess(Long userId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null) {
-            throw new RuntimeException("Authentication required");
-        }
-        
-        boolean isAdmin = authentication.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ADMIN"));
-        
-        if (!isAdmin) {
-            // 普通用户只能访问自己的购物车
-            String email = authentication.getName();
-            User currentUser = authService.getUserByEmail(email);
-            if (currentUser == null || !currentUser.getUserId().equals(userId)) {
-                throw new RuntimeException("You can only access your own cart");
-            }
-        }
-    }
 
     @GetMapping("/view")
+    @OwnerOnly(message = "You can only access your own cart")
     public CartResponseDTO viewCart(@RequestParam Long userId) {
-        validateUserAccess(userId);
-        List<CartItem> items = cartService.getCartItems(userId);
-        return toCartResponseDTO(userId, items);
+        return cartService.getCart(userId);
     }
 
     @PostMapping("/add")
+    @OwnerOnly(message = "You can only access your own cart")
     public CartResponseDTO addToCart(@RequestParam Long userId,
                                      @RequestParam Long productId,
                                      @RequestParam int quantity) {
-        validateUserAccess(userId);
         cartService.addToCart(userId, productId, quantity);
         return viewCart(userId);
     }
 
     @PatchMapping("/updateQuantity")
+    @OwnerOnly(message = "You can only access your own cart")
     public CartResponseDTO updateQuantity(@RequestParam Long cartItemId,
                                           @RequestParam int newQuantity,
                                           @RequestParam Long userId) {
-        validateUserAccess(userId);
-        cartService.updateQuantity(cartItemId, newQuantity);
+        cartService.updateQuantity(userId, cartItemId, newQuantity);
         return viewCart(userId);
     }
 
+    // PATCH /cart/lines?userId=  Body: [{"productId":1,"delta":2},{"productId":3,"setQuantity":5},{"productId":4,"remove":true}]
+    // 一个事务内应用全部操作，返回修改后的购物车
+    @PatchMapping("/lines")
+    @OwnerOnly(message = "You can only access your own cart")
+    public CartResponseDTO updateLines(@RequestParam Long userId,
+                                       @RequestBody List<CartLineOperationDTO> operations) {
+        return cartService.applyLineOperations(userId, operations);
+    }
+
+    // PUT /cart/sync?userId=  Body: {"version":3,"items":[{"productId":1,"quantity":2}, ...]}
+    // version 为 null 时把游客购物车合并进来；否则按版本号做乐观检查后用本地购物车覆盖。返回合并后的购物车与新版本号
+    @PutMapping("/sync")
+    @OwnerOnly(message = "You can only access your own cart")
+    public CartResponseDTO syncCart(@RequestParam Long userId, @RequestBody CartSyncRequestDTO request) {
+        return cartService.syncCart(userId, request);
+    }
+
     @DeleteMapping("/remove/{productId}")
+    @OwnerOnly(message = "You can only access your own cart")
     public CartResponseDTO removeItem(@PathVariable Long productId, @RequestParam Long userId) {
-        validateUserAccess(userId);
         cartService.removeItem(userId, productId);
         return viewCart(userId);
     }
 
     @DeleteMapping("/clear/{userId}")
+    @OwnerOnly(message = "You can only access your own cart")
     public CartResponseDTO clearCart(@PathVariable Long userId) {
-        validateUserAccess(userId);
         cartService.clearCart(userId);
-        return toCartResponseDTO(userId, java.util.Collections.emptyList());
-    }
-
-    private CartResponseDTO toCartResponseDTO(Long userId, List<CartItem> items) {
-        List<CartItemDTO> list = items.stream().map(this::toItemDTO).collect(Collectors.toList());
-        int totalItems = list.stream().mapToInt(CartItemDTO::getQuantity).sum();
-        double totalPrice = list.stream().mapToDouble(i -> i.getPrice() * i.getQuantity()).sum();
-
-        CartResponseDTO dto = new CartResponseDTO();
-        dto.setUserId(userId);
-        dto.setItems(list);
-        dto.setTotalItems(totalItems);
-        dto.setTotalPrice(totalPrice);
-        return dto;
-    }
-
-    private CartItemDTO toItemDTO(CartItem item) {
-        Product p = item.getProduct();
-        CartItemDTO dto = new CartItemDTO();
-        dto.setItemId(item.getItemId());
-        dto.setProductId(p.getProductId());
-        dto.setProductName(p.getName());
-        dto.setQuantity(item.getQuantity());
-        dto.setPrice(p.getRetailPrice() == null ? 0.0 : p.getRetailPrice().doubleValue());
-        return dto;
+        return viewCart(userId);
     }
-}
\ No newline at end of file
+}
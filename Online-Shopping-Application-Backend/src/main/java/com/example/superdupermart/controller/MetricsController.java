@@ -0,0 +1,19 @@
+package com.example.superdupermart.controller;
+
+import com.example.superdupermart.metrics.MetricsRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class MetricsController {
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    // GET /actuator/prometheus （Admin：Prometheus 文本格式指标）
+    @GetMapping(value = "/actuator/prometheus", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String prometheus() {
+        return metricsRegistry.scrape();
+    }
+}
@@ -4,17 +4,13 @@ import com.example.superdupermart.dto.OrderItemDTO;
 import com.example.superdupermart.dto.OrderResponseDTO;
 import com.example.superdupermart.entity.Order;
 import com.example.superdupermart.entity.OrderItem;
-import com.example.superdupermart.entity.User;
-import com.example.superdupermart.service.AuthService;
+import com.example.superdupermart.security.AuthenticatedUser;
+import com.example.superdupermart.security.OwnerOnly;
 import com.example.superdupermart.service.OrderService;
-import com.example.superdupermart.service.ProductService;
-import com.example.superdupermart.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -22,18 +18,14 @@ import java.util.stream.Collectors;
 @RequestMapping
 public class OrderController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private OrderService orderService;
-    @Autowired
-    private UserService userService;
-    @Autowired
-    private ProductService productService;
-    @Autowired
-    private AuthService authService;
 
     // POST /orders  Body: { "order":[{"productId":1,"quantity":10}, ...] }
-    // 说明：现有 service 是“从购物车下单”，这里为了匹配 collection，仍调用 placeOrder(userId) 的模式不变；
-    // 如果需要严格按 body 下单，应在 service 层补方法。先提供最小可运行版本。
+    // 不带 body 时从购物车下单；带 body 时按请求中的商品下单，同一商品的多行先合并
     public static class OrderLine {
         public Long productId;
         public int quantity;
@@ -44,65 +36,58 @@ public class OrderController {
     }
 
     @PostMapping("/orders")
+    @OwnerOnly(message = "You can only place orders for yourself")
     public Map<String, Object> placeNewOrder(@RequestParam Long userId, @RequestBody(required = false) PlaceOrderRequest body) {
         if (body == null || body.order == null || body.order.isEmpty()) {
             orderService.placeOrder(userId);
         } else {
-            java.util.Set<com.example.superdupermart.entity.OrderItem> set = new java.util.HashSet<>();
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
             for (OrderLine line : body.order) {
-                com.example.superdupermart.entity.OrderItem oi = new com.example.superdupermart.entity.OrderItem();
-                oi.setProduct(productService.getProductById(line.productId));
-                oi.setQuantity(line.quantity);
-                set.add(oi);
+                if (line.productId == null) {
+                    throw new RuntimeException("Product id is required");
+                }
+                if (line.quantity <= 0) {
+                    throw new RuntimeException("Invalid quantity for product: " + line.productId);
+                }
+                quantities.merge(line.productId, line.quantity, Integer::sum);
             }
-            orderService.placeOrder(userService.getUserById(userId), set);
+            orderService.placeOrder(userId, quantities);
         }
         java.util.Map<String, Object> resp = new java.util.HashMap<>();
         resp.put("message", "Order placed");
         return resp;
     }
 
-    // GET /orders/all
+    // GET /orders/all?userId=  （返回该用户的订单列表；Admin 不带 userId 时返回 OrderPageDTO { items, nextCursor }，
+    // 按 after/limit 分页，after 为上一页的 nextCursor，与 /admin/orders 相同）
     @GetMapping("/orders/all")
-    public List<OrderResponseDTO> getAllOrders(@RequestParam(required = false) Long userId) {
-        // 获取当前登录用户
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        boolean isAdmin = authentication != null && authentication.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ADMIN"));
+    public Object getAllOrders(@RequestParam(required = false) Long userId,
+                               @RequestParam(required = false) Long after,
+                               @RequestParam(required = false) Integer limit) {
+        // 获取当前登录用户（userId 来自 Token，无需查库）
+        AuthenticatedUser currentUser = AuthenticatedUser.current();
+        boolean isAdmin = currentUser != null && currentUser.isAdmin();
         
-        List<Order> orders;
         if (isAdmin && userId == null) {
-            // 管理员且没有指定 userId，返回所有订单
-            orders = orderService.getAllOrders();
+            // 管理员且没有指定 userId，返回一页订单（先取 ID 再按 ID 投影表头与明细）
+            int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            return orderService.getOrderPage(after, pageSize, null, null, null);
         } else {
             // 普通用户或管理员指定了 userId，返回指定用户的订单
             Long targetUserId = userId;
-            if (targetUserId == null) {
-                // 如果没有提供 userId，从 token 中获取当前用户
-                String email = authentication != null ? authentication.getName() : null;
-                if (email != null) {
-                    User currentUser = authService.getUserByEmail(email);
-                    if (currentUser != null) {
-                        targetUserId = currentUser.getUserId();
-                    }
-                }
+            if (targetUserId == null && currentUser != null) {
+                // 如果没有提供 userId，使用 token 中的当前用户
+                targetUserId = currentUser.getUserId();
             }
             if (targetUserId == null) {
                 throw new RuntimeException("User ID is required");
             }
             // 验证：普通用户只能查看自己的订单
-            if (!isAdmin) {
-                String email = authentication != null ? authentication.getName() : null;
-                if (email != null) {
-                    User currentUser = authService.getUserByEmail(email);
-                    if (currentUser != null && !currentUser.getUserId().equals(targetUserId)) {
-                        throw new RuntimeException("You can only view your own orders");
-                    }
-                }
+            if (!isAdmin && !targetUserId.equals(currentUser == null ? null : currentUser.getUserId())) {
+                throw new RuntimeException("You can only view your own orders");
             }
-            orders = orderService.getOrdersByUser(targetUserId);
+            return orderService.getOrdersByUser(targetUserId);
         }
-        return orders.stream().map(this::toOrderDTO).collect(Collectors.toList());
     }
 
     // GET /orders/{orderId}
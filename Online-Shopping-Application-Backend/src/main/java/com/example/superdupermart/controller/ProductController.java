@@ -1,13 +1,24 @@
 package com.example.superdupermart.controller;
 
 import com.example.superdupermart.dto.ProductDTO;
+import com.example.superdupermart.dto.ProductPageDTO;
+import com.example.superdupermart.dto.ProductRecord;
 import com.example.superdupermart.entity.Product;
+import com.example.superdupermart.security.AuthenticatedUser;
+import com.example.superdupermart.service.CatalogResponseCache;
+import com.example.superdupermart.service.CatalogSnapshot;
 import com.example.superdupermart.service.ProductService;
+import com.example.superdupermart.service.WatchlistIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -15,20 +26,143 @@ import java.util.stream.Collectors;
 @RequestMapping("/products")
 public class ProductController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final int MAX_SEARCH_LIMIT = 100;
+
     @Autowired
     private ProductService productService;
 
-    // GET /products/all （User: 仅展示有库存；Admin: 展示全部包括缺货）
+    @Autowired
+    private CatalogResponseCache responseCache;
+
+    @Autowired
+    private WatchlistIndex watchlistIndex;
+
+    // GET /products/all?after=&limit=&sort= （User: 仅展示有库存；Admin: 展示全部包括缺货）
+    // If-None-Match 与当前目录版本一致时直接返回 304；否则写出按目录版本缓存的 JSON 字节（支持 gzip）
+    // 本页有当前用户收藏的商品时，带 inWatchlist 标记单独序列化，不进缓存
+    // 声明 HttpServletResponse 参数表示由方法自行写出响应
     @GetMapping("/all")
-    public List<ProductDTO> getAllProducts() {
+    public void getAllProducts(@RequestParam(required = false) Long after,
+                               @RequestParam(required = false) Integer limit,
+                               @RequestParam(required = false, defaultValue = "id") String sort,
+                               ServletWebRequest webRequest,
+                               HttpServletResponse response) throws IOException {
+        boolean isAdmin = isAdminUser();
+        boolean gzip = CatalogResponseCache.acceptsGzip(webRequest.getRequest());
+        CatalogSnapshot.Snapshot catalog = productService.getCatalog();
+        WatchlistIndex.Membership watched = revalidate(webRequest, catalog, isAdmin, gzip);
+        if (webRequest.isNotModified()) {
+            return;
+        }
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // Admin 看全部，User 只看有库存（过滤在目录快照中完成）
+        List<ProductRecord> rows = productService.getProductPage(catalog, after, pageSize, sort, !isAdmin);
+        boolean hasMore = rows.size() > pageSize;
+        List<ProductRecord> items = hasMore ? rows.subList(0, pageSize) : rows;
+        if (watched != null && items.stream().anyMatch(r -> watched.contains(r.getProductId()))) {
+            responseCache.uncached(buildPage(items, hasMore, isAdmin, watched), gzip).writeTo(response, gzip);
+            return;
+        }
+        String key = "all:" + view(isAdmin) + ":" + sort + ":" + after + ":" + pageSize;
+        responseCache.get(catalog.getVersion(), key, () -> buildPage(items, hasMore, isAdmin, null))
+                .writeTo(response, gzip);
+    }
+
+    private ProductPageDTO buildPage(List<ProductRecord> items, boolean hasMore, boolean isAdmin,
+                                     WatchlistIndex.Membership watched) {
+        ProductPageDTO page = new ProductPageDTO();
+        page.setItems(items.stream().map(p -> toDTO(p, false, isAdmin, watched)).collect(Collectors.toList()));
+        page.setNextCursor(hasMore ? items.get(items.size() - 1).getProductId() : null);
+        return page;
+    }
+
+    private static ProductDTO toDTO(ProductRecord record, boolean withDescription, boolean isAdmin,
+                                    WatchlistIndex.Membership watched) {
+        ProductDTO dto = record.toDTO(withDescription, isAdmin);
+        dto.setInWatchlist(watched != null && watched.contains(record.getProductId()));
+        return dto;
+    }
+
+    /**
+     * 当前普通用户的收藏集合；未登录、管理员或旧 Token 中没有 userId 时返回 null（不标记）
+     */
+    private WatchlistIndex.Membership watchedBy(boolean isAdmin) {
+        return watchlistIndex.get(watcherId(isAdmin));
+    }
+
+    /**
+     * 需要标记收藏的用户 ID；未登录、管理员或旧 Token 中没有 userId 时返回 null
+     */
+    private static Long watcherId(boolean isAdmin) {
+        AuthenticatedUser user = AuthenticatedUser.current();
+        return isAdmin || user == null ? null : user.getUserId();
+    }
+
+    // GET /products/search?q=&limit= （按相关度排序；User 只看有库存）
+    @GetMapping("/search")
+    public List<ProductDTO> searchProducts(@RequestParam String q,
+                                           @RequestParam(required = false) Integer limit) {
         boolean isAdmin = isAdminUser();
-        return productService.getAllProducts()
+        WatchlistIndex.Membership watched = watchedBy(isAdmin);
+        int size = limit == null ? DEFAULT_SEARCH_LIMIT : Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+        return productService.searchProducts(q, size, !isAdmin)
                 .stream()
-                .filter(p -> isAdmin || p.getQuantity() > 0) // Admin 看全部，User 只看有库存
-                .map(p -> toDTO(p, isAdmin))
+                .map(p -> toDTO(p, false, isAdmin, watched))
                 .collect(Collectors.toList());
     }
 
+    // GET /products/batch?ids=1,2,3 （一次取多个商品，按请求顺序返回，最多 200 个）
+    @GetMapping("/batch")
+    public List<ProductDTO> getProductsByIds(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_PAGE_SIZE) {
+            throw new RuntimeException("Too many product ids, at most " + MAX_PAGE_SIZE + " allowed");
+        }
+        boolean isAdmin = isAdminUser();
+        WatchlistIndex.Membership watched = watchedBy(isAdmin);
+        return productService.getProductsByIds(ids)
+                .stream()
+                .map(p -> toDTO(p, false, isAdmin, watched))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * If-None-Match 检查并写出 ETag，返回生成响应体所需的收藏集合；命中时 webRequest.isNotModified() 为 true（304，不访问数据库）
+     * 只用内存中已有的收藏集合做检查：不在内存中的集合加载后分配的是新 stamp，客户端带来的 ETag 不可能命中，
+     * 这时跳过检查，加载后直接写出新 ETag；no-cache 让浏览器每次带 If-None-Match 重新验证
+     */
+    private WatchlistIndex.Membership revalidate(ServletWebRequest webRequest, CatalogSnapshot.Snapshot catalog,
+                                                 boolean isAdmin, boolean gzip) {
+        HttpServletResponse response = webRequest.getResponse();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        Long watcherId = watcherId(isAdmin);
+        WatchlistIndex.Membership watched = watchlistIndex.getIfLoaded(watcherId);
+        if (watcherId == null || watched != null) {
+            webRequest.checkNotModified(eTag(catalog, isAdmin, watched, gzip));
+            return watched;
+        }
+        watched = watchlistIndex.get(watcherId);
+        response.setHeader(HttpHeaders.ETAG, eTag(catalog, isAdmin, watched, gzip));
+        return watched;
+    }
+
+    /**
+     * 强 ETag = 目录版本 + 视图（管理员可见批发价与缺货商品，两种视图内容不同）+ 收藏集合 stamp + 编码（gzip 是另一种表示）
+     */
+    private static String eTag(CatalogSnapshot.Snapshot catalog, boolean isAdmin,
+                               WatchlistIndex.Membership watched, boolean gzip) {
+        return "\"catalog-" + catalog.getVersion() + "-" + view(isAdmin)
+                + (watched != null ? "-w" + watched.getStamp() : "") + (gzip ? "-gzip" : "") + "\"";
+    }
+
+    private static String view(boolean isAdmin) {
+        return isAdmin ? "admin" : "user";
+    }
+
     /**
      * 检查当前用户是否为管理员
      */
@@ -41,11 +175,28 @@ public class ProductController {
                 .anyMatch(a -> a.getAuthority().equals("ADMIN"));
     }
 
-    // GET /products/{productId}
+    // GET /products/{productId} （同样支持 If-None-Match 与缓存的 JSON 字节）
     @GetMapping("/{productId}")
-    public ProductDTO getProductDetailById(@PathVariable Long productId) {
+    public void getProductDetailById(@PathVariable Long productId, ServletWebRequest webRequest,
+                                     HttpServletResponse response) throws IOException {
         boolean isAdmin = isAdminUser();
-        return toDTO(productService.getProductById(productId), isAdmin);
+        boolean gzip = CatalogResponseCache.acceptsGzip(webRequest.getRequest());
+        CatalogSnapshot.Snapshot catalog = productService.getCatalogFor(productId);
+        WatchlistIndex.Membership watched = revalidate(webRequest, catalog, isAdmin, gzip);
+        if (webRequest.isNotModified()) {
+            return;
+        }
+        ProductRecord record = catalog.get(productId);
+        if (record == null) {
+            return;  // 与原先返回 null 一致：200 空响应体
+        }
+        if (watched != null && watched.contains(productId)) {
+            responseCache.uncached(toDTO(record, true, isAdmin, watched), gzip).writeTo(response, gzip);
+            return;
+        }
+        String key = "detail:" + view(isAdmin) + ":" + productId;
+        responseCache.get(catalog.getVersion(), key, () -> record.toDTO(true, isAdmin))
+                .writeTo(response, gzip);
     }
 
     // POST /products （Admin.CreateAProduct）
@@ -1,15 +1,12 @@
 package com.example.superdupermart.controller;
 
 import com.example.superdupermart.dto.WatchlistDTO;
-import com.example.superdupermart.entity.Watchlist;
-import com.example.superdupermart.service.ProductService;
-import com.example.superdupermart.service.UserService;
+import com.example.superdupermart.security.OwnerOnly;
 import com.example.superdupermart.service.WatchlistService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/watchlist")
@@ -18,39 +15,24 @@ public class WatchlistController {
     @Autowired
     private WatchlistService watchlistService;
 
-    @Autowired
-    private UserService userService;
-
-    @Autowired
-    private ProductService productService;
-
     // GET /watchlist/products/all
     @GetMapping("/products/all")
+    @OwnerOnly(message = "You can only access your own watchlist")
     public List<WatchlistDTO> getAllWatchlist(@RequestParam Long userId) {
-        return watchlistService.getUserWatchlist(userId)
-                .stream().map(this::toDTO).collect(Collectors.toList());
+        return watchlistService.getUserWatchlist(userId);
     }
 
     // POST /watchlist/product/{productId}
     @PostMapping("/product/{productId}")
+    @OwnerOnly(message = "You can only access your own watchlist")
     public String addToWatchlist(@RequestParam Long userId, @PathVariable Long productId) {
-        return watchlistService.addToWatchlist(
-                userService.getUserById(userId),
-                productService.getProductById(productId)
-        );
+        return watchlistService.addToWatchlist(userId, productId);
     }
 
     // DELETE /watchlist/product/{productId}
     @DeleteMapping("/product/{productId}")
+    @OwnerOnly(message = "You can only access your own watchlist")
     public String removeFromWatchlist(@RequestParam Long userId, @PathVariable Long productId) {
         return watchlistService.removeFromWatchlist(userId, productId);
     }
-
-    private WatchlistDTO toDTO(Watchlist w) {
-        WatchlistDTO dto = new WatchlistDTO();
-        dto.setProductId(w.getProduct().getProductId());
-        dto.setProductName(w.getProduct().getName());
-        dto.setPrice(w.getProduct().getRetailPrice() == null ? 0.0 : w.getProduct().getRetailPrice().doubleValue());
-        return dto;
-    }
-}
\ No newline at end of file
+}
@@ -2,6 +2,8 @@ package com.example.superdupermart.dao;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -23,6 +25,15 @@ public abstract class AbstractHibernateDao<T> {
         return sessionFactory.getCurrentSession();
     }
 
+    /**
+     * 按实体映射的主键生成器分配一个 id，供原生 INSERT 使用（与 Hibernate 自身插入共用同一号段，不会冲突）
+     */
+    protected Long nextId() {
+        SharedSessionContractImplementor session = (SharedSessionContractImplementor) getCurrentSession();
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(clazz);
+        return (Long) persister.getIdentifierGenerator().generate(session, null);
+    }
+
     public T findById(Long id) {
         return getCurrentSession().get(clazz, id);
     }
@@ -1,11 +1,20 @@
 package com.example.superdupermart.dao;
 
 import com.example.superdupermart.entity.Cart;
+import com.example.superdupermart.entity.CartItem;
 import com.example.superdupermart.entity.User;
 import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
 import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 @Repository
 public class CartDao extends AbstractHibernateDao<Cart> {
 
@@ -27,19 +36,143 @@ public class CartDao extends AbstractHibernateDao<Cart> {
     }
 
     /**
-     * 清空指定用户的购物车（下单后使用）
+     * 修改购物车内容前调用：不存在时插入，已存在时刷新 updatedAt 并把版本号加 1
+     * 依赖 carts.user_id 唯一约束，一条语句，并发安全；同时锁住购物车行直到事务结束
      */
-    public void clearCart(User user) {
-        Cart cart = findByUser(user);
-        if (cart != null) {
-            // 使用 HQL 删除购物车项，避免懒加载问题
-            Session session = getCurrentSession();
-            Query query = session.createQuery(
-                "DELETE FROM CartItem WHERE cart = :cart"
-            );
-            query.setParameter("cart", cart);
-            query.executeUpdate();
+    public void upsertForUser(Long userId) {
+        insertCart(userId, "updatedAt = :now, version = version + 1");
+    }
+
+    /**
+     * 购物车不存在时插入（版本号 0），已存在时不做任何修改
+     */
+    public void createIfAbsent(Long userId) {
+        insertCart(userId, "cartId = cartId");
+    }
+
+    private void insertCart(Long userId, String onDuplicate) {
+        getCurrentSession().createNativeQuery(
+                "INSERT INTO carts (cartId, user_id, createdAt, updatedAt, version) VALUES (:id, :userId, :now, :now, 0) " +
+                "ON DUPLICATE KEY UPDATE " + onDuplicate)
+                .addSynchronizedEntityClass(Cart.class)
+                .setParameter("id", nextId())
+                .setParameter("userId", userId)
+                .setParameter("now", LocalDateTime.now())
+                .executeUpdate();
+    }
+
+    /**
+     * 购物车内容变化：刷新 updatedAt 并把版本号加 1（没有购物车时不做任何事）
+     */
+    public int touch(Long userId) {
+        return getCurrentSession().createNativeQuery(
+                "UPDATE carts SET updatedAt = :now, version = version + 1 WHERE user_id = :userId")
+                .addSynchronizedEntityClass(Cart.class)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("userId", userId)
+                .executeUpdate();
+    }
+
+    /**
+     * 乐观版本检查：版本号仍为 expected 时加 1 并返回 1，已被其他请求修改时返回 0
+     */
+    public int bumpVersion(Long userId, long expected) {
+        return getCurrentSession().createNativeQuery(
+                "UPDATE carts SET updatedAt = :now, version = version + 1 WHERE user_id = :userId AND version = :expected")
+                .addSynchronizedEntityClass(Cart.class)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("userId", userId)
+                .setParameter("expected", expected)
+                .executeUpdate();
+    }
+
+    /**
+     * 用户购物车的当前版本号，没有购物车时返回 null
+     */
+    public Long findVersionByUserId(Long userId) {
+        return getCurrentSession().createQuery(
+                "SELECT c.version FROM Cart c WHERE c.user.userId = :userId", Long.class)
+                .setParameter("userId", userId)
+                .uniqueResult();
+    }
+
+    /**
+     * 清空指定用户的购物车（清空接口和下单后共用），返回删除的购物项行数；没有购物车时返回 0
+     * 行数与购物车大小无关，固定三条语句：推进版本（同时锁住购物车行）、查 cartId、一条 DELETE
+     */
+    public int clearCart(Long userId) {
+        if (touch(userId) == 0) {
+            return 0;
         }
+        Session session = getCurrentSession();
+        Long cartId = session.createQuery(
+                "SELECT c.cartId FROM Cart c WHERE c.user.userId = :userId", Long.class)
+                .setParameter("userId", userId)
+                .uniqueResult();
+        int deleted = session.createNativeQuery("DELETE FROM cart_items WHERE cart_id = :cartId")
+                .addSynchronizedEntityClass(CartItem.class)
+                .setParameter("cartId", cartId)
+                .executeUpdate();
+        detachCart(session, cartId);
+        return deleted;
+    }
+
+    /**
+     * 批量删除绕过了持久化上下文：把当前会话中这个购物车及其购物项移出，避免之后读到已删除的行或级联写回
+     * Cart / CartItem 没有二级缓存，查询缓存由上面的 synchronized space 失效
+     */
+    private void detachCart(Session session, Long cartId) {
+        List<Object> stale = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> e : ((SessionImplementor) session).getPersistenceContext().reentrantSafeEntityEntries()) {
+            Status status = e.getValue().getStatus();
+            if (status == Status.DELETED || status == Status.GONE) {
+                continue;
+            }
+            Object entity = e.getKey();
+            if (entity instanceof Cart && cartId.equals(((Cart) entity).getCartId())
+                    || entity instanceof CartItem && cartId.equals(session.getIdentifier(((CartItem) entity).getCart()))) {
+                stale.add(entity);
+            }
+        }
+        stale.forEach(session::detach);
+    }
+
+    /**
+     * 锁定最多 limit 个 updatedAt 早于 cutoff 的购物车，返回 cartId（按 idx_carts_updated_at 顺序）
+     * 正被其他事务修改的购物车直接跳过（SKIP LOCKED），不等待；购物车修改都先锁购物车行，因此锁住后不会再有新购物项写入
+     */
+    public List<Long> lockIdleCartIds(LocalDateTime cutoff, int limit) {
+        List<?> rows = getCurrentSession().createNativeQuery(
+                "SELECT cartId FROM carts WHERE updatedAt < :cutoff ORDER BY updatedAt, cartId LIMIT :limit " +
+                "FOR UPDATE SKIP LOCKED")
+                .addSynchronizedEntityClass(Cart.class)
+                .setParameter("cutoff", cutoff)
+                .setParameter("limit", limit)
+                .list();
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            ids.add(((Number) row).longValue());
+        }
+        return ids;
+    }
+
+    /**
+     * 删除一批购物车及其购物项，返回 [删除的购物项数, 删除的购物车数]
+     */
+    public int[] deleteCarts(List<Long> cartIds) {
+        if (cartIds.isEmpty()) {
+            return new int[]{0, 0};
+        }
+        Session session = getCurrentSession();
+        int items = session.createNativeQuery("DELETE FROM cart_items WHERE cart_id IN (:cartIds)")
+                .addSynchronizedEntityClass(CartItem.class)
+                .setParameterList("cartIds", cartIds)
+                .executeUpdate();
+        int carts = session.createNativeQuery("DELETE FROM carts WHERE cartId IN (:cartIds)")
+                .addSynchronizedEntityClass(Cart.class)
+                .setParameterList("cartIds", cartIds)
+                .executeUpdate();
+        return new int[]{items, carts};
     }
 
     /**
@@ -1,13 +1,18 @@
 package com.example.superdupermart.dao;
 
+import com.example.superdupermart.dto.CartItemDTO;
 import com.example.superdupermart.entity.Cart;
 import com.example.superdupermart.entity.CartItem;
 import com.example.superdupermart.entity.Product;
 import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public class CartItemDao extends AbstractHibernateDao<CartItem> {
@@ -29,6 +34,135 @@ public class CartItemDao extends AbstractHibernateDao<CartItem> {
         return query.list();
     }
 
+    /**
+     * 用户购物车列表（HQL 构造器投影，不加载实体）
+     * 对应: /cart/view
+     */
+    public List<CartItemDTO> findItemDTOsByUserId(Long userId) {
+        Session session = getCurrentSession();
+        Query<CartItemDTO> query = session.createQuery(
+                "SELECT new com.example.superdupermart.dto.CartItemDTO(ci.itemId, p.productId, p.name, ci.quantity, p.retailPrice) " +
+                "FROM CartItem ci JOIN ci.product p WHERE ci.cart.user.userId = :userId ORDER BY ci.itemId",
+                CartItemDTO.class
+        );
+        query.setParameter("userId", userId);
+        return query.list();
+    }
+
+    /**
+     * 加购：购物车中没有该商品时插入一行，已有时数量累加（依赖 (cart_id, product_id) 唯一约束，一条语句，并发安全）
+     * 购物车须已存在（CartDao.upsertForUser），返回受影响行数（MySQL：插入 1，累加 2）
+     */
+    public int addQuantity(Long userId, Long productId, int quantity) {
+        return getCurrentSession().createNativeQuery(
+                "INSERT INTO cart_items (itemId, cart_id, product_id, quantity, addedAt) " +
+                "SELECT :id, c.cartId, :productId, :quantity, :now FROM carts c WHERE c.user_id = :userId " +
+                "ON DUPLICATE KEY UPDATE quantity = cart_items.quantity + :quantity")
+                .addSynchronizedEntityClass(CartItem.class)
+                .setParameter("id", nextId())
+                .setParameter("productId", productId)
+                .setParameter("quantity", quantity)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("userId", userId)
+                .executeUpdate();
+    }
+
+    /**
+     * 批量写入购物项（一条语句）：setQuantities 中的商品数量设为给定值，addQuantities 中的商品数量累加
+     * 购物车中没有的商品插入新行；两个 Map 的 key 不重叠，value 必须 > 0，购物车须已存在
+     */
+    public int upsertLines(Long userId, Map<Long, Integer> setQuantities, Map<Long, Integer> addQuantities) {
+        int rows = setQuantities.size() + addQuantities.size();
+        if (rows == 0) {
+            return 0;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) lines.append(" UNION ALL ");
+            lines.append("SELECT :id").append(i).append(" AS id, :p").append(i).append(" AS pid, :q").append(i)
+                    .append(" AS q, :abs").append(i).append(" AS absolute");
+        }
+        NativeQuery<?> query = getCurrentSession().createNativeQuery(
+                "INSERT INTO cart_items (itemId, cart_id, product_id, quantity, addedAt) " +
+                "SELECT d.id, c.cartId, d.pid, d.q, :now FROM carts c JOIN (" + lines + ") d ON c.user_id = :userId " +
+                "ON DUPLICATE KEY UPDATE quantity = CASE WHEN d.absolute = 1 THEN d.q ELSE cart_items.quantity + d.q END");
+        query.addSynchronizedEntityClass(CartItem.class);
+        int i = 0;
+        for (Map.Entry<Long, Integer> e : setQuantities.entrySet()) {
+            bindLine(query, i++, e.getKey(), e.getValue(), 1);
+        }
+        for (Map.Entry<Long, Integer> e : addQuantities.entrySet()) {
+            bindLine(query, i++, e.getKey(), e.getValue(), 0);
+        }
+        query.setParameter("now", LocalDateTime.now());
+        query.setParameter("userId", userId);
+        return query.executeUpdate();
+    }
+
+    private void bindLine(NativeQuery<?> query, int i, Long productId, Integer quantity, int absolute) {
+        query.setParameter("id" + i, nextId());
+        query.setParameter("p" + i, productId);
+        query.setParameter("q" + i, quantity);
+        query.setParameter("abs" + i, absolute);
+    }
+
+    /**
+     * 批量减少购物项数量（一条 UPDATE，只影响购物车中已有的商品；value 为要减去的正数）
+     * 减到 0 及以下的行由 deleteLines 清理
+     */
+    public int subtractQuantities(Long userId, Map<Long, Integer> amounts) {
+        if (amounts.isEmpty()) {
+            return 0;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < amounts.size(); i++) {
+            if (i > 0) lines.append(" UNION ALL ");
+            lines.append("SELECT :p").append(i).append(" AS pid, :q").append(i).append(" AS q");
+        }
+        NativeQuery<?> query = getCurrentSession().createNativeQuery(
+                "UPDATE cart_items ci JOIN carts c ON ci.cart_id = c.cartId " +
+                "JOIN (" + lines + ") d ON ci.product_id = d.pid " +
+                "SET ci.quantity = ci.quantity - d.q WHERE c.user_id = :userId");
+        query.addSynchronizedEntityClass(CartItem.class);
+        int i = 0;
+        for (Map.Entry<Long, Integer> e : amounts.entrySet()) {
+            query.setParameter("p" + i, e.getKey());
+            query.setParameter("q" + i, e.getValue());
+            i++;
+        }
+        query.setParameter("userId", userId);
+        return query.executeUpdate();
+    }
+
+    /**
+     * 批量删除购物项（一条 DELETE）：removeIds 中的商品直接删除，emptyCheckIds 中的商品数量 <= 0 时删除
+     */
+    public int deleteLines(Long userId, Collection<Long> removeIds, Collection<Long> emptyCheckIds) {
+        if (removeIds.isEmpty() && emptyCheckIds.isEmpty()) {
+            return 0;
+        }
+        StringBuilder condition = new StringBuilder();
+        if (!removeIds.isEmpty()) {
+            condition.append("ci.product_id IN (:removeIds)");
+        }
+        if (!emptyCheckIds.isEmpty()) {
+            if (condition.length() > 0) condition.append(" OR ");
+            condition.append("(ci.product_id IN (:checkIds) AND ci.quantity <= 0)");
+        }
+        NativeQuery<?> query = getCurrentSession().createNativeQuery(
+                "DELETE ci FROM cart_items ci JOIN carts c ON ci.cart_id = c.cartId " +
+                "WHERE c.user_id = :userId AND (" + condition + ")");
+        query.addSynchronizedEntityClass(CartItem.class);
+        if (!removeIds.isEmpty()) {
+            query.setParameterList("removeIds", removeIds);
+        }
+        if (!emptyCheckIds.isEmpty()) {
+            query.setParameterList("checkIds", emptyCheckIds);
+        }
+        query.setParameter("userId", userId);
+        return query.executeUpdate();
+    }
+
     /**
      * 根据购物车与商品查找是否已有该商品
      * 用于：添加商品时判重
@@ -0,0 +1,47 @@
+package com.example.superdupermart.dao;
+
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * id_generators 表：订单、购物车、收藏等写入频繁的实体按块从这里分配主键
+ * 这些表原先用自增列，切换后需保证分配出的 id 大于表中已有的最大 id
+ */
+@Repository
+public class IdGeneratorDao {
+
+    // 生成器名（@TableGenerator.pkColumnValue）-> 表名.主键列
+    private static final Map<String, String> SEGMENTS = new LinkedHashMap<>();
+
+    static {
+        SEGMENTS.put("orders", "orders.orderId");
+        SEGMENTS.put("order_items", "order_items.itemId");
+        SEGMENTS.put("carts", "carts.cartId");
+        SEGMENTS.put("cart_items", "cart_items.itemId");
+        SEGMENTS.put("watchlists", "watchlists.id");
+    }
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    /**
+     * 把每个生成器的当前值推进到对应表的最大 id（只增不减）
+     */
+    @Transactional(transactionManager = "transactionManager")
+    public void alignWithExistingRows() {
+        for (Map.Entry<String, String> e : SEGMENTS.entrySet()) {
+            String[] target = e.getValue().split("\\.");
+            sessionFactory.getCurrentSession().createNativeQuery(
+                    "INSERT INTO id_generators (sequence_name, next_val) " +
+                    "SELECT :name, COALESCE(MAX(" + target[1] + "), 0) FROM " + target[0] + " " +
+                    "ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val))")
+                    .setParameter("name", e.getKey())
+                    .executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.superdupermart.dao;
+
+import com.example.superdupermart.entity.OrderCounter;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class OrderCounterDao extends AbstractHibernateDao<OrderCounter> {
+
+    public OrderCounterDao() {
+        setClazz(OrderCounter.class);
+    }
+
+    /**
+     * 读取计数器，不存在时返回 null
+     */
+    public Long getValue(String counterName) {
+        Session session = getCurrentSession();
+        Query<Long> query = session.createQuery(
+                "SELECT c.counterValue FROM OrderCounter c WHERE c.counterName = :name", Long.class);
+        query.setParameter("name", counterName);
+        return query.uniqueResult();
+    }
+
+    /**
+     * 原子累加计数器（不存在时创建）
+     */
+    public void increment(String counterName, long delta) {
+        Session session = getCurrentSession();
+        NativeQuery<?> query = session.createNativeQuery(
+                "INSERT INTO order_counters (counterName, counterValue) VALUES (:name, :delta) " +
+                "ON DUPLICATE KEY UPDATE counterValue = counterValue + VALUES(counterValue)");
+        query.addSynchronizedEntityClass(OrderCounter.class);
+        query.setParameter("name", counterName);
+        query.setParameter("delta", delta);
+        query.executeUpdate();
+    }
+
+    /**
+     * 直接覆盖计数器的值（重建统计时使用）
+     */
+    public void setValue(String counterName, long value) {
+        Session session = getCurrentSession();
+        NativeQuery<?> query = session.createNativeQuery(
+                "INSERT INTO order_counters (counterName, counterValue) VALUES (:name, :value) " +
+                "ON DUPLICATE KEY UPDATE counterValue = VALUES(counterValue)");
+        query.addSynchronizedEntityClass(OrderCounter.class);
+        query.setParameter("name", counterName);
+        query.setParameter("value", value);
+        query.executeUpdate();
+    }
+}
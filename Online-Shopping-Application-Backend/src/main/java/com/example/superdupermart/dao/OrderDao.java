@@ -1,12 +1,16 @@
 package com.example.superdupermart.dao;
 
+import com.example.superdupermart.dto.OrderResponseDTO;
 import com.example.superdupermart.entity.Order;
-import com.example.superdupermart.entity.User;
 import org.hibernate.Session;
 import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public class OrderDao extends AbstractHibernateDao<Order> {
@@ -16,32 +20,105 @@ public class OrderDao extends AbstractHibernateDao<Order> {
     }
 
     /**
-     * 获取指定用户的所有订单（使用 JOIN FETCH 避免懒加载问题）
+     * 获取指定用户的所有订单 ID（按下单时间倒序），明细由调用方按 ID 批量投影
      * 对应 Postman: /user/order/getAllOrders
      */
-    public List<Order> findByUser(User user) {
+    public List<Long> findIdsByUserId(Long userId) {
         Session session = getCurrentSession();
-        Query<Order> query = session.createQuery(
-                "SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems oi LEFT JOIN FETCH oi.product WHERE o.user = :user ORDER BY o.datePlaced DESC",
-                Order.class
+        Query<Long> query = session.createQuery(
+                "SELECT o.orderId FROM Order o WHERE o.user.userId = :userId ORDER BY o.datePlaced DESC, o.orderId DESC",
+                Long.class
         );
-        query.setParameter("user", user);
+        query.setParameter("userId", userId);
         return query.list();
     }
 
     /**
-     * 管理员查看所有订单（使用 JOIN FETCH 避免懒加载问题）
-     * 对应 Postman: /admin/order/getAllOrders
+     * 管理员订单列表第一步：游标分页（keyset）只取一页订单 ID，按 (datePlaced, orderId) 倒序
+     * 游标为上一页最后一个订单的 orderId；status、from、to 为可选过滤条件
+     * 对应 Postman: /admin/orders?after=&limit=&status=&from=&to=
      */
-    public List<Order> findAllOrders() {
+    public List<Long> findPageIds(Long afterId, int limit, String status, LocalDateTime from, LocalDateTime to) {
+        StringBuilder hql = new StringBuilder("SELECT o.orderId FROM Order o WHERE 1 = 1");
+        if (status != null) {
+            hql.append(" AND o.orderStatus = :status");
+        }
+        if (from != null) {
+            hql.append(" AND o.datePlaced >= :from");
+        }
+        if (to != null) {
+            hql.append(" AND o.datePlaced < :to");
+        }
+        LocalDateTime afterDate = null;
+        if (afterId != null) {
+            afterDate = findDatePlaced(afterId);
+            hql.append(" AND (o.datePlaced < :afterDate OR (o.datePlaced = :afterDate AND o.orderId < :afterId))");
+        }
+        hql.append(" ORDER BY o.datePlaced DESC, o.orderId DESC");
+
         Session session = getCurrentSession();
-        Query<Order> query = session.createQuery(
-                "SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems oi LEFT JOIN FETCH oi.product ORDER BY o.datePlaced DESC",
-                Order.class
-        );
+        Query<Long> query = session.createQuery(hql.toString(), Long.class);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        if (afterId != null) {
+            query.setParameter("afterDate", afterDate);
+            query.setParameter("afterId", afterId);
+        }
+        query.setMaxResults(limit);
         return query.list();
     }
 
+    /**
+     * 订单列表第二步：只读这一页订单的表头列（HQL 构造器投影），按传入 ID 的顺序返回
+     * 明细由 OrderItemDao.findItemDTOsByOrderIds 按同一批 ID 取回
+     */
+    public List<OrderResponseDTO> findSummariesByIds(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Session session = getCurrentSession();
+        Query<OrderResponseDTO> query = session.createQuery(
+                "SELECT new com.example.superdupermart.dto.OrderResponseDTO(o.orderId, o.datePlaced, o.orderStatus) " +
+                "FROM Order o WHERE o.orderId IN (:ids)",
+                OrderResponseDTO.class
+        );
+        query.setParameterList("ids", orderIds);
+        Map<Long, OrderResponseDTO> byId = new HashMap<>();
+        for (OrderResponseDTO order : query.list()) {
+            byId.put(order.getOrderId(), order);
+        }
+        List<OrderResponseDTO> ordered = new ArrayList<>(orderIds.size());
+        for (Long id : orderIds) {
+            OrderResponseDTO order = byId.get(id);
+            if (order != null) {
+                ordered.add(order);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * 读取游标订单的下单时间（只查单列）
+     */
+    private LocalDateTime findDatePlaced(Long orderId) {
+        Session session = getCurrentSession();
+        Query<LocalDateTime> query = session.createQuery(
+                "SELECT o.datePlaced FROM Order o WHERE o.orderId = :id", LocalDateTime.class);
+        query.setParameter("id", orderId);
+        LocalDateTime value = query.uniqueResult();
+        if (value == null) {
+            throw new RuntimeException("Invalid cursor: " + orderId);
+        }
+        return value;
+    }
+
     /**
      * 根据订单 ID 获取订单详情（使用 JOIN FETCH 避免懒加载问题）
      * 对应 Postman: /user/order/getOrderDetail, /admin/order/getOrderDetail
@@ -69,4 +146,37 @@ public class OrderDao extends AbstractHibernateDao<Order> {
         query.setParameter("id", orderId);
         query.executeUpdate();
     }
-}
\ No newline at end of file
+
+    /**
+     * 条件更新订单状态：仅当当前状态仍为 expectedStatus 时才更新，返回受影响行数
+     * 防止并发状态流转导致重复回补库存或重复计入统计
+     */
+    public int updateOrderStatus(Long orderId, String expectedStatus, String status) {
+        Session session = getCurrentSession();
+        Query query = session.createQuery(
+                "UPDATE Order SET orderStatus = :status WHERE orderId = :id AND orderStatus = :expected"
+        );
+        query.setParameter("status", status);
+        query.setParameter("id", orderId);
+        query.setParameter("expected", expectedStatus);
+        return query.executeUpdate();
+    }
+
+    /**
+     * 统计订单数量（status 为 null 时统计全部）
+     * 对应: /admin/stats/rebuild
+     */
+    public long countByStatus(String status) {
+        Session session = getCurrentSession();
+        Query<Long> query = session.createQuery(
+                status == null
+                        ? "SELECT COUNT(o) FROM Order o"
+                        : "SELECT COUNT(o) FROM Order o WHERE o.orderStatus = :status",
+                Long.class
+        );
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        return query.uniqueResult();
+    }
+}
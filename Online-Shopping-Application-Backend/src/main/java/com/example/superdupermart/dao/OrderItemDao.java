@@ -1,5 +1,7 @@
 package com.example.superdupermart.dao;
 
+import com.example.superdupermart.dto.OrderItemDTO;
+import com.example.superdupermart.dto.ProductSalesSummaryDTO;
 import com.example.superdupermart.entity.Order;
 import com.example.superdupermart.entity.OrderItem;
 import com.example.superdupermart.entity.Product;
@@ -7,11 +9,26 @@ import org.hibernate.Session;
 import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public class OrderItemDao extends AbstractHibernateDao<OrderItem> {
 
+    // 聚合排序键 -> HQL 聚合表达式
+    private static final Map<String, String> AGGREGATE_ORDER = new HashMap<>();
+
+    static {
+        AGGREGATE_ORDER.put("quantity", "SUM(oi.quantity)");
+        AGGREGATE_ORDER.put("revenue", "SUM(oi.purchasedPrice * oi.quantity)");
+        AGGREGATE_ORDER.put("profit", "SUM((oi.purchasedPrice - oi.wholesalePrice) * oi.quantity)");
+        AGGREGATE_ORDER.put("recent", "MAX(o.datePlaced)");
+    }
+
     public OrderItemDao() {
         setClazz(OrderItem.class);
     }
@@ -28,9 +45,31 @@ public class OrderItemDao extends AbstractHibernateDao<OrderItem> {
         return query.list();
     }
 
+    /**
+     * 一批订单的明细列表项，按 orderId 分组（只读订单 ID、商品 ID/名称/售价与数量，不加载实体）
+     * 对应: 订单列表 /orders/all, /admin/orders
+     */
+    public Map<Long, List<OrderItemDTO>> findItemDTOsByOrderIds(Collection<Long> orderIds) {
+        Map<Long, List<OrderItemDTO>> byOrder = new HashMap<>();
+        if (orderIds.isEmpty()) {
+            return byOrder;
+        }
+        Session session = getCurrentSession();
+        Query<Object[]> query = session.createQuery(
+                "SELECT oi.order.orderId, p.productId, p.name, oi.quantity, p.retailPrice " +
+                "FROM OrderItem oi JOIN oi.product p WHERE oi.order.orderId IN (:ids) ORDER BY oi.itemId",
+                Object[].class);
+        query.setParameterList("ids", orderIds);
+        for (Object[] row : query.list()) {
+            byOrder.computeIfAbsent((Long) row[0], k -> new ArrayList<>())
+                    .add(new OrderItemDTO((Long) row[1], (String) row[2], (Integer) row[3], (BigDecimal) row[4]));
+        }
+        return byOrder;
+    }
+
     /**
      * 批量保存订单项
-     * 在下单时被 Service 调用
+     * 在下单时被 Service 调用；主键由表生成器预分配，flush 时按 jdbc.batch_size 合并为批量 INSERT
      */
     public void saveAll(List<OrderItem> items) {
         Session session = getCurrentSession();
@@ -50,4 +89,29 @@ public class OrderItemDao extends AbstractHibernateDao<OrderItem> {
         query.setParameter("product", product);
         return query.uniqueResult();
     }
-}
\ No newline at end of file
+
+    /**
+     * 按商品聚合某个用户的订单明细，排除指定状态（如 Canceled）的订单
+     * 对应 Postman: /products/frequent/{topN}, /products/recent/{topN}
+     */
+    public List<ProductSalesSummaryDTO> aggregateByUser(Long userId, String excludedStatus, String orderBy, int topN) {
+        String orderExpr = AGGREGATE_ORDER.get(orderBy);
+        if (orderExpr == null) {
+            throw new RuntimeException("Invalid aggregate order: " + orderBy);
+        }
+        Session session = getCurrentSession();
+        Query<ProductSalesSummaryDTO> query = session.createQuery(
+                "SELECT new com.example.superdupermart.dto.ProductSalesSummaryDTO(" +
+                "p.productId, p.name, SUM(oi.quantity), SUM(oi.purchasedPrice * oi.quantity), " +
+                "SUM((oi.purchasedPrice - oi.wholesalePrice) * oi.quantity), MAX(o.datePlaced)) " +
+                "FROM OrderItem oi JOIN oi.order o JOIN oi.product p " +
+                "WHERE o.user.userId = :userId AND o.orderStatus <> :status " +
+                "GROUP BY p.productId, p.name " +
+                "ORDER BY " + orderExpr + " DESC, p.productId",
+                ProductSalesSummaryDTO.class);
+        query.setParameter("userId", userId);
+        query.setParameter("status", excludedStatus);
+        query.setMaxResults(topN);
+        return query.list();
+    }
+}
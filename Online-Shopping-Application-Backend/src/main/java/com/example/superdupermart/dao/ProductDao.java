@@ -1,21 +1,64 @@
 package com.example.superdupermart.dao;
 
+import com.example.superdupermart.dto.ProductRecord;
 import com.example.superdupermart.entity.Product;
+import org.hibernate.Cache;
 import org.hibernate.Criteria;
 import org.hibernate.Session;
-import org.hibernate.criterion.MatchMode;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Repository
 public class ProductDao extends AbstractHibernateDao<Product> {
 
+    // 目录快照记录投影：只读需要的列，不创建受管实体
+    private static final String RECORD_SELECT = "SELECT new com.example.superdupermart.dto.ProductRecord(" +
+            "p.productId, p.name, p.description, p.retailPrice, p.wholesalePrice, p.quantity) FROM Product p";
+
+    // 库存原生 SQL 使用的查询空间（不与任何实体缓存区域关联）
+    private static final String STOCK_QUERY_SPACE = "products_stock";
+
     public ProductDao() {
         setClazz(Product.class);
     }
 
+    /**
+     * 全部商品的快照记录（按 productId 排序）
+     * 对应: CatalogSnapshot 全量构建
+     */
+    public List<ProductRecord> findAllRecords() {
+        Session session = getCurrentSession();
+        return session.createQuery(RECORD_SELECT + " ORDER BY p.productId", ProductRecord.class).list();
+    }
+
+    /**
+     * 指定商品的快照记录（已删除的商品不在结果中）
+     * 对应: CatalogSnapshot 增量刷新
+     */
+    public List<ProductRecord> findRecordsByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Session session = getCurrentSession();
+        Query<ProductRecord> query = session.createQuery(
+                RECORD_SELECT + " WHERE p.productId IN (:ids)", ProductRecord.class);
+        query.setParameterList("ids", ids);
+        return query.list();
+    }
+
     /**
      * 使用 Criteria 查询所有仍有库存的商品
      * 对应 Postman: User/Product/GetAllInStockProducts
@@ -28,14 +71,90 @@ public class ProductDao extends AbstractHibernateDao<Product> {
     }
 
     /**
-     * 根据关键词搜索商品名称（模糊匹配）
-     * 对应 Postman: 用户搜索
+     * 根据一组 ID 批量加载商品（Hibernate multi-id 加载：已在 Session 中的直接复用，其余一条 IN 查询）
+     * 不存在的 ID 不在结果中，结果顺序不保证
+     * 对应: 按请求体下单 /orders
+     */
+    public List<Product> findAllByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Product> loaded = getCurrentSession().byMultipleIds(Product.class)
+                .enableSessionCheck(true)
+                .enableOrderedReturn(false)
+                .multiLoad(new ArrayList<>(new LinkedHashSet<>(ids)));
+        List<Product> result = new ArrayList<>(loaded.size());
+        for (Product product : loaded) {
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 条件扣减库存：一条 UPDATE 处理订单所有商品，库存不足的行不会被更新
+     * 返回实际更新的行数，调用方据此判断是否全部扣减成功（quantities 的 key 不重复，value 必须 > 0）
+     * 对应: 下单 /orders
      */
-    public List<Product> searchByName(String keyword) {
+    public int decrementStock(Map<Long, Integer> quantities) {
+        return applyStockDelta(quantities,
+                "UPDATE products p JOIN (%s) d ON p.productId = d.id " +
+                "SET p.quantity = p.quantity - d.n WHERE p.quantity >= d.n");
+    }
+
+    /**
+     * 回补库存（取消订单时使用）
+     */
+    public int incrementStock(Map<Long, Integer> quantities) {
+        return applyStockDelta(quantities,
+                "UPDATE products p JOIN (%s) d ON p.productId = d.id " +
+                "SET p.quantity = p.quantity + d.n");
+    }
+
+    /**
+     * 把 productId -> 数量 展开成派生表 (SELECT :id0 AS id, :n0 AS n UNION ALL ...) 后执行
+     */
+    private int applyStockDelta(Map<Long, Integer> quantities, String sqlTemplate) {
+        if (quantities == null || quantities.isEmpty()) {
+            return 0;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < quantities.size(); i++) {
+            if (i > 0) lines.append(" UNION ALL ");
+            lines.append("SELECT :id").append(i).append(" AS id, :n").append(i).append(" AS n");
+        }
+
         Session session = getCurrentSession();
-        Criteria criteria = session.createCriteria(Product.class);
-        criteria.add(Restrictions.ilike("name", keyword, MatchMode.ANYWHERE));
-        return criteria.list();
+        NativeQuery<?> query = session.createNativeQuery(String.format(sqlTemplate, lines));
+        // 不声明为 Product 的同步空间：否则 Hibernate 会清空整个 Product 缓存区域，改为只失效涉及的商品
+        query.addSynchronizedQuerySpace(STOCK_QUERY_SPACE);
+        int i = 0;
+        for (Map.Entry<Long, Integer> e : quantities.entrySet()) {
+            query.setParameter("id" + i, e.getKey());
+            query.setParameter("n" + i, e.getValue());
+            i++;
+        }
+        int updated = query.executeUpdate();
+        evictFromCache(quantities.keySet());
+        return updated;
+    }
+
+    /**
+     * 从二级缓存中移除商品：立即移除一次，提交后再移除一次（覆盖提交前被其他事务读回缓存的旧值）
+     */
+    private void evictFromCache(Collection<Long> productIds) {
+        Cache cache = getCurrentSession().getSessionFactory().getCache();
+        Set<Long> ids = new HashSet<>(productIds);
+        ids.forEach(id -> cache.evictEntityData(Product.class, id));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    ids.forEach(id -> cache.evictEntityData(Product.class, id));
+                }
+            });
+        }
     }
 
     /**
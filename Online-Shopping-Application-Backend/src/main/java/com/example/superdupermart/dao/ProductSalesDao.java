@@ -0,0 +1,118 @@
+package com.example.superdupermart.dao;
+
+import com.example.superdupermart.entity.ProductSales;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class ProductSalesDao extends AbstractHibernateDao<ProductSales> {
+
+    public ProductSalesDao() {
+        setClazz(ProductSales.class);
+    }
+
+    /**
+     * 销量 TopN（内连接商品表，已删除商品不参与排名）
+     * 对应: /products/popular/{topN}
+     */
+    public List<ProductSales> findTopByUnitsSold(int topN) {
+        Session session = getCurrentSession();
+        Query<ProductSales> query = session.createQuery(
+                "SELECT ps FROM ProductSales ps JOIN FETCH ps.product WHERE ps.unitsSold > 0 " +
+                "ORDER BY ps.unitsSold DESC, ps.productId",
+                ProductSales.class);
+        query.setMaxResults(topN);
+        return query.list();
+    }
+
+    /**
+     * 利润 TopN
+     * 对应: /products/profit/{topN}
+     */
+    public List<ProductSales> findTopByProfit(int topN) {
+        Session session = getCurrentSession();
+        Query<ProductSales> query = session.createQuery(
+                "SELECT ps FROM ProductSales ps JOIN FETCH ps.product WHERE ps.unitsSold > 0 " +
+                "ORDER BY ps.profit DESC, ps.productId",
+                ProductSales.class);
+        query.setMaxResults(topN);
+        return query.list();
+    }
+
+    /**
+     * 所有有销量的商品汇总
+     */
+    public List<ProductSales> findAllWithProduct() {
+        Session session = getCurrentSession();
+        return session.createQuery(
+                "SELECT ps FROM ProductSales ps JOIN FETCH ps.product WHERE ps.unitsSold > 0",
+                ProductSales.class).list();
+    }
+
+    /**
+     * 已完成订单中售出的商品总件数
+     */
+    public long sumUnitsSold() {
+        Session session = getCurrentSession();
+        Long total = session.createQuery(
+                "SELECT SUM(ps.unitsSold) FROM ProductSales ps", Long.class).uniqueResult();
+        return total == null ? 0L : total;
+    }
+
+    /**
+     * 一条 upsert 语句把多个商品的增量累加到汇总表（delta 可为负，用于订单移出 Completed）
+     */
+    public void applyDeltas(Collection<ProductSales> deltas) {
+        if (deltas == null || deltas.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO product_sales (productId, unitsSold, revenue, cost, profit, updatedAt) VALUES ");
+        for (int i = 0; i < deltas.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("(:p").append(i).append(", :u").append(i).append(", :r").append(i)
+                    .append(", :c").append(i).append(", :f").append(i).append(", NOW())");
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE unitsSold = unitsSold + VALUES(unitsSold), " +
+                "revenue = revenue + VALUES(revenue), cost = cost + VALUES(cost), " +
+                "profit = profit + VALUES(profit), updatedAt = VALUES(updatedAt)");
+
+        Session session = getCurrentSession();
+        NativeQuery<?> query = session.createNativeQuery(sql.toString());
+        query.addSynchronizedEntityClass(ProductSales.class);
+        int i = 0;
+        for (ProductSales d : deltas) {
+            query.setParameter("p" + i, d.getProductId());
+            query.setParameter("u" + i, d.getUnitsSold());
+            query.setParameter("r" + i, d.getRevenue());
+            query.setParameter("c" + i, d.getCost());
+            query.setParameter("f" + i, d.getProfit());
+            i++;
+        }
+        query.executeUpdate();
+    }
+
+    /**
+     * 从订单明细全量重建汇总表
+     * 对应: /admin/stats/rebuild
+     */
+    public void rebuildFromCompletedOrders() {
+        Session session = getCurrentSession();
+        session.createNativeQuery("DELETE FROM product_sales")
+                .addSynchronizedEntityClass(ProductSales.class)
+                .executeUpdate();
+        session.createNativeQuery(
+                "INSERT INTO product_sales (productId, unitsSold, revenue, cost, profit, updatedAt) " +
+                "SELECT oi.product_id, SUM(oi.quantity), SUM(oi.purchasedPrice * oi.quantity), " +
+                "SUM(oi.wholesalePrice * oi.quantity), SUM((oi.purchasedPrice - oi.wholesalePrice) * oi.quantity), NOW() " +
+                "FROM order_items oi JOIN orders o ON o.orderId = oi.order_id " +
+                "WHERE o.orderStatus = 'Completed' GROUP BY oi.product_id")
+                .addSynchronizedEntityClass(ProductSales.class)
+                .executeUpdate();
+    }
+}
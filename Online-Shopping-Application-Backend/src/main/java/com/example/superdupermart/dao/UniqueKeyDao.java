@@ -0,0 +1,128 @@
+package com.example.superdupermart.dao;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 启动时补齐唯一约束：hbm2ddl 建唯一约束失败（表中已有重复行）时只记日志不报错，
+ * 这里先合并重复行，再确认约束存在，缺失时补建，补建失败则启动失败
+ */
+@Repository
+public class UniqueKeyDao {
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    /**
+     * 合并同一用户的多个购物车、同一购物车中同一商品的多行：保留 cartId / itemId 最小的一行，数量相加
+     * 重复数据只可能是旧版本留下的少量行，逐个用户处理；返回处理的用户数
+     */
+    @Transactional(transactionManager = "transactionManager")
+    public int mergeDuplicateCarts() {
+        Session session = sessionFactory.getCurrentSession();
+        List<?> userIds = session.createNativeQuery(
+                "SELECT user_id FROM carts GROUP BY user_id HAVING COUNT(*) > 1 " +
+                "UNION " +
+                "SELECT c.user_id FROM cart_items ci JOIN carts c ON ci.cart_id = c.cartId " +
+                "GROUP BY ci.cart_id, ci.product_id, c.user_id HAVING COUNT(*) > 1")
+                .list();
+        for (Object userId : userIds) {
+            mergeCartsOfUser(session, ((Number) userId).longValue());
+        }
+        return userIds.size();
+    }
+
+    private void mergeCartsOfUser(Session session, long userId) {
+        List<?> carts = session.createNativeQuery(
+                "SELECT cartId FROM carts WHERE user_id = :userId ORDER BY cartId")
+                .setParameter("userId", userId)
+                .list();
+        long keepCartId = ((Number) carts.get(0)).longValue();
+        List<Long> otherCartIds = new ArrayList<>();
+        for (int i = 1; i < carts.size(); i++) {
+            otherCartIds.add(((Number) carts.get(i)).longValue());
+        }
+
+        // productId -> [保留的 itemId, 数量合计]
+        Map<Long, long[]> merged = new LinkedHashMap<>();
+        List<Long> redundantItemIds = new ArrayList<>();
+        List<?> lines = session.createNativeQuery(
+                "SELECT ci.itemId, ci.product_id, ci.quantity FROM cart_items ci " +
+                "JOIN carts c ON ci.cart_id = c.cartId WHERE c.user_id = :userId ORDER BY ci.itemId")
+                .setParameter("userId", userId)
+                .list();
+        for (Object line : lines) {
+            Object[] row = (Object[]) line;
+            long itemId = ((Number) row[0]).longValue();
+            long productId = ((Number) row[1]).longValue();
+            long quantity = ((Number) row[2]).longValue();
+            long[] kept = merged.get(productId);
+            if (kept == null) {
+                merged.put(productId, new long[]{itemId, quantity});
+            } else {
+                kept[1] += quantity;
+                redundantItemIds.add(itemId);
+            }
+        }
+
+        // 先删多余行，再把保留行移到保留的购物车，避免与 (cart_id, product_id) 约束冲突
+        if (!redundantItemIds.isEmpty()) {
+            session.createNativeQuery("DELETE FROM cart_items WHERE itemId IN (:ids)")
+                    .setParameterList("ids", redundantItemIds)
+                    .executeUpdate();
+        }
+        for (long[] kept : merged.values()) {
+            session.createNativeQuery(
+                    "UPDATE cart_items SET cart_id = :cartId, quantity = :quantity WHERE itemId = :itemId")
+                    .setParameter("cartId", keepCartId)
+                    .setParameter("quantity", (int) Math.min(kept[1], Integer.MAX_VALUE))
+                    .setParameter("itemId", kept[0])
+                    .executeUpdate();
+        }
+        if (!otherCartIds.isEmpty()) {
+            session.createNativeQuery("DELETE FROM carts WHERE cartId IN (:ids)")
+                    .setParameterList("ids", otherCartIds)
+                    .executeUpdate();
+        }
+    }
+
+    /**
+     * 删除重复的收藏（同一用户同一商品保留 id 最小的一行），返回删除的行数
+     */
+    @Transactional(transactionManager = "transactionManager")
+    public int deleteDuplicateWatchlists() {
+        return sessionFactory.getCurrentSession().createNativeQuery(
+                "DELETE w FROM watchlists w JOIN watchlists d " +
+                "ON w.user_id = d.user_id AND w.product_id = d.product_id AND w.id > d.id")
+                .executeUpdate();
+    }
+
+    /**
+     * 确认唯一索引存在，不存在时补建（重复行未清理干净时 ALTER 失败，异常向上抛出使启动失败）
+     * 返回是否补建了索引
+     */
+    @Transactional(transactionManager = "transactionManager")
+    public boolean ensureUniqueKey(String table, String name, String columns) {
+        Session session = sessionFactory.getCurrentSession();
+        Number existing = (Number) session.createNativeQuery(
+                "SELECT COUNT(*) FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = :table AND index_name = :name")
+                .setParameter("table", table)
+                .setParameter("name", name)
+                .uniqueResult();
+        if (existing.intValue() > 0) {
+            return false;
+        }
+        session.createNativeQuery("ALTER TABLE " + table + " ADD CONSTRAINT " + name + " UNIQUE (" + columns + ")")
+                .executeUpdate();
+        return true;
+    }
+}
@@ -15,7 +15,7 @@ public class UserDao extends AbstractHibernateDao<User> {
     }
 
     /**
-     * 根据用户名查找用户
+     * 根据用户名查找用户（查询缓存：结果只缓存 ID，实体从二级缓存读取；users 表有写入时自动失效）
      * 对应: /auth/login, /auth/register (用户名查重)
      */
     public User findByUsername(String username) {
@@ -23,11 +23,12 @@ public class UserDao extends AbstractHibernateDao<User> {
         Query<User> query = session.createQuery(
                 "FROM User WHERE username = :username", User.class);
         query.setParameter("username", username);
+        query.setCacheable(true);
         return query.uniqueResult();
     }
 
     /**
-     * 根据邮箱查找用户
+     * 根据邮箱查找用户（查询缓存）
      * 对应: /auth/register (邮箱查重)
      */
     public User findByEmail(String email) {
@@ -35,6 +36,7 @@ public class UserDao extends AbstractHibernateDao<User> {
         Query<User> query = session.createQuery(
                 "FROM User WHERE email = :email", User.class);
         query.setParameter("email", email);
+        query.setCacheable(true);
         return query.uniqueResult();
     }
 
@@ -1,10 +1,14 @@
 package com.example.superdupermart.dao;
 
+import com.example.superdupermart.dto.WatchlistDTO;
+import com.example.superdupermart.entity.Product;
+import com.example.superdupermart.entity.User;
 import com.example.superdupermart.entity.Watchlist;
 import org.hibernate.Session;
 import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -15,41 +19,65 @@ public class WatchlistDao extends AbstractHibernateDao<Watchlist> {
     }
 
     /**
-     * 获取指定用户的所有收藏记录（使用 JOIN FETCH 避免懒加载问题）
-     * 对应: /user/watchlist/view
+     * 用户收藏列表（HQL 构造器投影，不加载实体）
+     * 对应: /watchlist/products/all
      */
-    public List<Watchlist> findByUserId(Long userId) {
+    public List<WatchlistDTO> findDTOsByUserId(Long userId) {
         Session session = getCurrentSession();
-        Query<Watchlist> query = session.createQuery(
-                "SELECT w FROM Watchlist w LEFT JOIN FETCH w.product WHERE w.user.userId = :userId", Watchlist.class);
+        Query<WatchlistDTO> query = session.createQuery(
+                "SELECT new com.example.superdupermart.dto.WatchlistDTO(p.productId, p.name, p.retailPrice) " +
+                "FROM Watchlist w JOIN w.product p WHERE w.user.userId = :userId ORDER BY w.id",
+                WatchlistDTO.class);
         query.setParameter("userId", userId);
         return query.list();
     }
 
     /**
-     * 根据用户和商品 ID 查找是否已收藏
-     * 对应: /user/watchlist/add (用于判重)
+     * 用户收藏的所有商品 ID（用于 WatchlistIndex 加载）
      */
-    public Watchlist findByUserAndProduct(Long userId, Long productId) {
-        Session session = getCurrentSession();
-        Query<Watchlist> query = session.createQuery(
-                "FROM Watchlist WHERE user.userId = :userId AND product.productId = :productId",
-                Watchlist.class);
-        query.setParameter("userId", userId);
-        query.setParameter("productId", productId);
-        return query.uniqueResult();
+    public List<Long> findProductIdsByUserId(Long userId) {
+        return getCurrentSession().createQuery(
+                "SELECT w.product.productId FROM Watchlist w WHERE w.user.userId = :userId", Long.class)
+                .setParameter("userId", userId)
+                .list();
+    }
+
+    /**
+     * 全部 (productId, userId) 收藏关系，按 productId、userId 排序（用于 ProductWatchers 加载）
+     */
+    public List<Object[]> findAllProductUserPairs() {
+        return getCurrentSession().createQuery(
+                "SELECT w.product.productId, w.user.userId FROM Watchlist w " +
+                "ORDER BY w.product.productId, w.user.userId", Object[].class)
+                .list();
     }
 
     /**
-     * 删除收藏项 (根据用户和商品)
-     * 对应: /user/watchlist/remove/{productId}
+     * 收藏商品：已收藏时不做任何修改（依赖 uk_watchlists_user_product），返回插入的行数（1 新增，0 已存在）
+     * 外键直接按 ID 写入，不加载用户和商品；INSERT IGNORE 同样会忽略外键错误，调用方需先确认用户和商品存在
+     * 对应: /watchlist/product/{productId} (POST)
      */
-    public void deleteByUserAndProduct(Long userId, Long productId) {
+    public int insertIfAbsent(Long userId, Long productId) {
+        return getCurrentSession().createNativeQuery(
+                "INSERT IGNORE INTO watchlists (id, user_id, product_id, addedAt) VALUES (:id, :userId, :productId, :now)")
+                .addSynchronizedEntityClass(Watchlist.class)
+                .setParameter("id", nextId())
+                .setParameter("userId", userId)
+                .setParameter("productId", productId)
+                .setParameter("now", LocalDateTime.now())
+                .executeUpdate();
+    }
+
+    /**
+     * 删除收藏项 (根据用户和商品)，返回删除的行数（0 表示未收藏）
+     * 用户、商品以 session.load 代理作为参数，只取 ID，不查库
+     * 对应: /watchlist/product/{productId} (DELETE)
+     */
+    public int deleteByUserAndProduct(Long userId, Long productId) {
         Session session = getCurrentSession();
-        Query query = session.createQuery(
-                "DELETE FROM Watchlist WHERE user.userId = :userId AND product.productId = :productId");
-        query.setParameter("userId", userId);
-        query.setParameter("productId", productId);
-        query.executeUpdate();
+        return session.createQuery("DELETE FROM Watchlist WHERE user = :user AND product = :product")
+                .setParameter("user", session.load(User.class, userId))
+                .setParameter("product", session.load(Product.class, productId))
+                .executeUpdate();
     }
-}
\ No newline at end of file
+}
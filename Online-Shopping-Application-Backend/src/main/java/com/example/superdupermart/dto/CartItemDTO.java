@@ -1,5 +1,7 @@
 package com.example.superdupermart.dto;
 
+import java.math.BigDecimal;
+
 public class CartItemDTO {
     private Long itemId;
     private Long productId;
@@ -9,6 +11,14 @@ public class CartItemDTO {
 
     public CartItemDTO() {}
 
+    public CartItemDTO(Long itemId, Long productId, String productName, Integer quantity, BigDecimal price) {
+        this.itemId = itemId;
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity == null ? 0 : quantity;
+        this.price = price == null ? 0.0 : price.doubleValue();
+    }
+
     public Long getProductId() {
         return productId;
     }
@@ -0,0 +1,45 @@
+package com.example.superdupermart.dto;
+
+/**
+ * 购物车批量修改中的一条操作：delta（增减数量）、setQuantity（设为指定数量，0 表示删除）、remove 三者取其一
+ */
+public class CartLineOperationDTO {
+    private Long productId;
+    private Integer delta;
+    private Integer setQuantity;
+    private Boolean remove;
+
+    public CartLineOperationDTO() {}
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+
+    public Integer getSetQuantity() {
+        return setQuantity;
+    }
+
+    public void setSetQuantity(Integer setQuantity) {
+        this.setQuantity = setQuantity;
+    }
+
+    public Boolean getRemove() {
+        return remove;
+    }
+
+    public void setRemove(Boolean remove) {
+        this.remove = remove;
+    }
+}
@@ -7,6 +7,7 @@ public class CartResponseDTO {
     private int totalItems;
     private double totalPrice;
     private List<CartItemDTO> items;
+    private Long version;  // 购物车版本号，没有购物车时为 null
 
     public CartResponseDTO() {}
 
@@ -41,4 +42,12 @@ public class CartResponseDTO {
     public void setItems(List<CartItemDTO> items) {
         this.items = items;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
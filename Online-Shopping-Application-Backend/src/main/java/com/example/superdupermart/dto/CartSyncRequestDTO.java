@@ -0,0 +1,53 @@
+package com.example.superdupermart.dto;
+
+import java.util.List;
+
+/**
+ * 购物车同步请求：客户端本地购物车 + 客户端看到的购物车版本号
+ * version 为 null 表示游客购物车（登录后合并），否则 items 是基于该版本修改后的完整购物车
+ */
+public class CartSyncRequestDTO {
+    private Long version;
+    private List<Item> items;
+
+    public CartSyncRequestDTO() {}
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+
+    public static class Item {
+        private Long productId;
+        private int quantity;
+
+        public Item() {}
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public void setProductId(Long productId) {
+            this.productId = productId;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
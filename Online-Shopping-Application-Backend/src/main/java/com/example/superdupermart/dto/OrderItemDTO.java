@@ -1,5 +1,7 @@
 package com.example.superdupermart.dto;
 
+import java.math.BigDecimal;
+
 public class OrderItemDTO {
     private Long productId;
     private String productName;
@@ -8,6 +10,13 @@ public class OrderItemDTO {
 
     public OrderItemDTO() {}
 
+    public OrderItemDTO(Long productId, String productName, Integer quantity, BigDecimal price) {
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity == null ? 0 : quantity;
+        this.price = price == null ? 0.0 : price.doubleValue();
+    }
+
     public Long getProductId() {
         return productId;
     }
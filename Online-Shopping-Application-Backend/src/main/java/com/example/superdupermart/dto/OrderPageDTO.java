@@ -0,0 +1,26 @@
+package com.example.superdupermart.dto;
+
+import java.util.List;
+
+public class OrderPageDTO {
+    private List<OrderResponseDTO> items;
+    private Long nextCursor;  // 下一页的 after 参数（最后一个订单的 orderId），null 表示已到末页
+
+    public OrderPageDTO() {}
+
+    public List<OrderResponseDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<OrderResponseDTO> items) {
+        this.items = items;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
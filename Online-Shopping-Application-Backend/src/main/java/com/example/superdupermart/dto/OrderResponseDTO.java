@@ -12,6 +12,12 @@ public class OrderResponseDTO {
 
     public OrderResponseDTO() {}
 
+    public OrderResponseDTO(Long orderId, LocalDateTime datePlaced, String orderStatus) {
+        this.orderId = orderId;
+        this.datePlaced = datePlaced;
+        this.orderStatus = orderStatus;
+    }
+
     public Long getOrderId() {
         return orderId;
     }
@@ -1,5 +1,7 @@
 package com.example.superdupermart.dto;
 
+import java.math.BigDecimal;
+
 public class ProductDTO {
     private Long productId;
     private String name;
@@ -7,9 +9,21 @@ public class ProductDTO {
     private double price;
     private int stock;
     private Double wholesalePrice;  // 仅管理员可见
+    private boolean inWatchlist;    // 当前用户是否已收藏（未登录与管理员视图恒为 false）
 
     public ProductDTO() {}
 
+    /**
+     * 列表页 HQL 构造器投影：不读取 description，也不加载 Product 实体
+     */
+    public ProductDTO(Long productId, String name, BigDecimal retailPrice, Integer quantity, BigDecimal wholesalePrice) {
+        this.productId = productId;
+        this.name = name;
+        this.price = retailPrice == null ? 0.0 : retailPrice.doubleValue();
+        this.stock = quantity == null ? 0 : quantity;
+        this.wholesalePrice = wholesalePrice == null ? null : wholesalePrice.doubleValue();
+    }
+
     public Long getProductId() {
         return productId;
     }
@@ -57,4 +71,12 @@ public class ProductDTO {
     public void setDescription(String description) {
         this.description = description;
     }
-}
\ No newline at end of file
+
+    public boolean isInWatchlist() {
+        return inWatchlist;
+    }
+
+    public void setInWatchlist(boolean inWatchlist) {
+        this.inWatchlist = inWatchlist;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.superdupermart.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * 商品目录快照中的不可变记录（HQL 构造器投影得到，不对应受管实体）
+ */
+public final class ProductRecord {
+    private final Long productId;
+    private final String name;
+    private final String description;
+    private final BigDecimal retailPrice;
+    private final BigDecimal wholesalePrice;
+    private final int quantity;
+
+    public ProductRecord(Long productId, String name, String description,
+                         BigDecimal retailPrice, BigDecimal wholesalePrice, Integer quantity) {
+        this.productId = productId;
+        this.name = name;
+        this.description = description;
+        this.retailPrice = retailPrice;
+        this.wholesalePrice = wholesalePrice;
+        this.quantity = quantity == null ? 0 : quantity;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public BigDecimal getRetailPrice() {
+        return retailPrice;
+    }
+
+    public BigDecimal getWholesalePrice() {
+        return wholesalePrice;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * 转为接口返回的 ProductDTO；列表不带 description，批发价仅管理员可见
+     */
+    public ProductDTO toDTO(boolean withDescription, boolean isAdmin) {
+        ProductDTO dto = new ProductDTO(productId, name, retailPrice, quantity, isAdmin ? wholesalePrice : null);
+        if (withDescription) {
+            dto.setDescription(description);
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.superdupermart.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 按商品分组的订单明细聚合结果（HQL 构造器投影，不加载实体）
+ */
+public class ProductSalesSummaryDTO {
+    private Long productId;
+    private String productName;
+    private long totalQuantity;
+    private double totalRevenue;
+    private double totalProfit;
+    private LocalDateTime lastPurchased;
+
+    public ProductSalesSummaryDTO() {}
+
+    public ProductSalesSummaryDTO(Long productId, String productName, Number totalQuantity,
+                                  Number totalRevenue, Number totalProfit, LocalDateTime lastPurchased) {
+        this.productId = productId;
+        this.productName = productName;
+        this.totalQuantity = totalQuantity == null ? 0L : totalQuantity.longValue();
+        this.totalRevenue = totalRevenue == null ? 0.0 : totalRevenue.doubleValue();
+        this.totalProfit = totalProfit == null ? 0.0 : totalProfit.doubleValue();
+        this.lastPurchased = lastPurchased;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public long getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public void setTotalQuantity(long totalQuantity) {
+        this.totalQuantity = totalQuantity;
+    }
+
+    public double getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    public void setTotalRevenue(double totalRevenue) {
+        this.totalRevenue = totalRevenue;
+    }
+
+    public double getTotalProfit() {
+        return totalProfit;
+    }
+
+    public void setTotalProfit(double totalProfit) {
+        this.totalProfit = totalProfit;
+    }
+
+    public LocalDateTime getLastPurchased() {
+        return lastPurchased;
+    }
+
+    public void setLastPurchased(LocalDateTime lastPurchased) {
+        this.lastPurchased = lastPurchased;
+    }
+}
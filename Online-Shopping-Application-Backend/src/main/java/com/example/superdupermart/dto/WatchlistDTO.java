@@ -1,5 +1,7 @@
 package com.example.superdupermart.dto;
 
+import java.math.BigDecimal;
+
 public class WatchlistDTO {
     private Long productId;
     private String productName;
@@ -7,6 +9,12 @@ public class WatchlistDTO {
 
     public WatchlistDTO() {}
 
+    public WatchlistDTO(Long productId, String productName, BigDecimal price) {
+        this.productId = productId;
+        this.productName = productName;
+        this.price = price == null ? 0.0 : price.doubleValue();
+    }
+
     public Long getProductId() {
         return productId;
     }
@@ -6,11 +6,19 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "carts")
+@Table(name = "carts", uniqueConstraints = {
+        // 每个用户只有一个购物车，创建购物车用 INSERT ... ON DUPLICATE KEY UPDATE
+        @UniqueConstraint(name = "uk_carts_user", columnNames = "user_id")
+}, indexes = {
+        // 过期购物车清理按 updatedAt 顺序分块扫描
+        @Index(name = "idx_carts_updated_at", columnList = "updatedAt, cartId")
+})
 public class Cart {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cart_id")
+    @TableGenerator(name = "cart_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "carts", allocationSize = 50)
     private Long cartId;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -23,6 +31,11 @@ public class Cart {
     @Column(nullable = false)
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    // 乐观版本号：购物车内容每次变化都加 1，同步接口据此检测并发修改
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
+
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<CartItem> cartItems = new HashSet<>();
 
@@ -61,6 +74,14 @@ public class Cart {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Set<CartItem> getCartItems() {
         return cartItems;
     }
@@ -6,11 +6,18 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // 管理员订单列表按 (datePlaced, orderId) 游标分页
+        @Index(name = "idx_orders_date_placed", columnList = "datePlaced, orderId"),
+        @Index(name = "idx_orders_status_date_placed", columnList = "orderStatus, datePlaced, orderId")
+})
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // 主键由 id_generators 表按块分配（每次取 50 个），插入不依赖自增列，可以走 JDBC 批量
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_id")
+    @TableGenerator(name = "order_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "orders", allocationSize = 50)
     private Long orderId;
 
     @ManyToOne(fetch = FetchType.LAZY)
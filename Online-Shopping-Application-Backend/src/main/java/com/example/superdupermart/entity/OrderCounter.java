@@ -0,0 +1,39 @@
+package com.example.superdupermart.entity;
+
+import javax.persistence.*;
+
+/**
+ * 全局订单计数器（已完成订单数等），按名称存一行
+ */
+@Entity
+@Table(name = "order_counters")
+public class OrderCounter {
+
+    public static final String COMPLETED_ORDERS = "completedOrders";
+
+    @Id
+    @Column(length = 32)
+    private String counterName;
+
+    @Column(nullable = false)
+    private Long counterValue = 0L;
+
+    public OrderCounter() {}
+
+    // ---------- Getters & Setters ----------
+    public String getCounterName() {
+        return counterName;
+    }
+
+    public void setCounterName(String counterName) {
+        this.counterName = counterName;
+    }
+
+    public Long getCounterValue() {
+        return counterValue;
+    }
+
+    public void setCounterValue(Long counterValue) {
+        this.counterValue = counterValue;
+    }
+}
@@ -4,11 +4,16 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "watchlists")
+@Table(name = "watchlists", uniqueConstraints = {
+        // 同一用户对同一商品只收藏一次，添加用 INSERT IGNORE
+        @UniqueConstraint(name = "uk_watchlists_user_product", columnNames = {"user_id", "product_id"})
+})
 public class Watchlist {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "watchlist_id")
+    @TableGenerator(name = "watchlist_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "watchlists", allocationSize = 50)
     private Long id;
 
     // 用户（多对一）
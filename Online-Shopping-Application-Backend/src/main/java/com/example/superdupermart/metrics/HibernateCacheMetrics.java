@@ -0,0 +1,40 @@
+package com.example.superdupermart.metrics;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 把 Hibernate 二级缓存与查询缓存的命中/未命中/写入次数注册到 MetricsRegistry
+ */
+@Component
+public class HibernateCacheMetrics {
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void register() {
+        Statistics stats = sessionFactory.getStatistics();
+        for (String region : stats.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStats = stats.getDomainDataRegionStatistics(region);
+            if (regionStats == null) continue;
+            metricsRegistry.counter("hibernate_second_level_cache_hits_total", "Second-level cache hits",
+                    regionStats::getHitCount, "region", region);
+            metricsRegistry.counter("hibernate_second_level_cache_misses_total", "Second-level cache misses",
+                    regionStats::getMissCount, "region", region);
+            metricsRegistry.counter("hibernate_second_level_cache_puts_total", "Second-level cache puts",
+                    regionStats::getPutCount, "region", region);
+        }
+        metricsRegistry.counter("hibernate_query_cache_hits_total", "Query cache hits", stats::getQueryCacheHitCount);
+        metricsRegistry.counter("hibernate_query_cache_misses_total", "Query cache misses", stats::getQueryCacheMissCount);
+        metricsRegistry.counter("hibernate_query_cache_puts_total", "Query cache puts", stats::getQueryCachePutCount);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.superdupermart.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 在连接池启动前挂上指标采集：获取连接的等待时间、连接占用时长、超时次数，以及池内连接数
+ */
+@Component
+public class HikariMetricsPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<MetricsRegistry> metricsRegistry;
+
+    public HikariMetricsPostProcessor(ObjectProvider<MetricsRegistry> metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource && ((HikariDataSource) bean).getMetricsTrackerFactory() == null) {
+            ((HikariDataSource) bean).setMetricsTrackerFactory(new Factory());
+        }
+        return bean;
+    }
+
+    private class Factory implements MetricsTrackerFactory {
+
+        @Override
+        public IMetricsTracker create(String poolName, PoolStats poolStats) {
+            MetricsRegistry registry = metricsRegistry.getObject();
+            registry.gauge("hikaricp_connections_active", "Connections in use",
+                    poolStats::getActiveConnections, "pool", poolName);
+            registry.gauge("hikaricp_connections_idle", "Idle connections",
+                    poolStats::getIdleConnections, "pool", poolName);
+            registry.gauge("hikaricp_connections_pending", "Threads waiting for a connection",
+                    poolStats::getPendingThreads, "pool", poolName);
+            LatencyHistogram acquire = registry.histogram("hikaricp_connections_acquire_seconds",
+                    "Time spent waiting to borrow a connection", "pool", poolName);
+            LatencyHistogram usage = registry.histogram("hikaricp_connections_usage_seconds",
+                    "Time a connection was held before being returned", "pool", poolName);
+            LongAdder timeouts = registry.counter("hikaricp_connections_timeout_total",
+                    "Connection borrow timeouts", "pool", poolName);
+            return new IMetricsTracker() {
+                @Override
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    acquire.recordNanos(elapsedAcquiredNanos);
+                }
+
+                @Override
+                public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                    usage.recordMicros(elapsedBorrowedMillis * 1000);
+                }
+
+                @Override
+                public void recordConnectionTimeout() {
+                    timeouts.increment();
+                }
+            };
+        }
+    }
+}
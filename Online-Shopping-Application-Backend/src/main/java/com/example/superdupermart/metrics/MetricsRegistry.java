@@ -0,0 +1,161 @@
+package com.example.superdupermart.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 进程内指标注册表：延迟直方图、计数器、瞬时值，按 Prometheus 文本格式导出
+ * 指标按 名称 + 标签 区分，标签值应为有限集合（路由模板、DAO 方法名等），避免高基数
+ */
+@Component
+public class MetricsRegistry {
+
+    // 导出直方图时使用的桶上界（秒）
+    private static final String[] EXPORT_BOUNDS = {
+            "0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5", "10"
+    };
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * 获取（不存在时创建）一个延迟直方图，labels 为 key1, value1, key2, value2 ...
+     */
+    public LatencyHistogram histogram(String name, String help, String... labels) {
+        return (LatencyHistogram) family(name, help, "histogram")
+                .series.computeIfAbsent(renderLabels(labels), k -> new LatencyHistogram());
+    }
+
+    /**
+     * 获取（不存在时创建）一个单调递增计数器
+     */
+    public LongAdder counter(String name, String help, String... labels) {
+        return (LongAdder) family(name, help, "counter")
+                .series.computeIfAbsent(renderLabels(labels), k -> new LongAdder());
+    }
+
+    /**
+     * 注册一个由外部维护的计数器（导出时读取，如 Hibernate 统计）
+     */
+    public void counter(String name, String help, LongSupplier supplier, String... labels) {
+        family(name, help, "counter").series.put(renderLabels(labels), supplier);
+    }
+
+    /**
+     * 注册一个瞬时值（导出时读取）
+     */
+    public void gauge(String name, String help, LongSupplier supplier, String... labels) {
+        family(name, help, "gauge").series.put(renderLabels(labels), supplier);
+    }
+
+    /**
+     * 某个直方图指标下所有序列（标签 -> 直方图）
+     */
+    public Map<String, LatencyHistogram> histograms(String name) {
+        Family family = families.get(name);
+        if (family == null || !"histogram".equals(family.type)) {
+            return Collections.emptyMap();
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, LatencyHistogram> series = (Map<String, LatencyHistogram>) (Map<String, ?>) family.series;
+        return Collections.unmodifiableMap(series);
+    }
+
+    /**
+     * 导出为 Prometheus 文本格式（0.0.4）
+     */
+    public String scrape() {
+        StringBuilder sb = new StringBuilder(4096);
+        for (Family family : families.values()) {
+            sb.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            sb.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> e : family.series.entrySet()) {
+                Object value = e.getValue();
+                if (value instanceof LatencyHistogram) {
+                    writeHistogram(sb, family.name, e.getKey(), (LatencyHistogram) value);
+                } else if (value instanceof LongAdder) {
+                    writeSample(sb, family.name, e.getKey(), null, ((LongAdder) value).sum());
+                } else if (value instanceof LongSupplier) {
+                    writeSample(sb, family.name, e.getKey(), null, ((LongSupplier) value).getAsLong());
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.get(name);
+        if (family == null) {
+            family = families.computeIfAbsent(name, k -> new Family(name, help, type));
+        }
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as " + family.type);
+        }
+        return family;
+    }
+
+    private void writeHistogram(StringBuilder sb, String name, String labels, LatencyHistogram h) {
+        // 按内部桶上界累加到导出桶（内部桶相对误差 ≤ 12.5%）
+        int bucket = 0;
+        long cumulative = 0;
+        for (String bound : EXPORT_BOUNDS) {
+            long boundMicros = Math.round(Double.parseDouble(bound) * 1_000_000);
+            while (bucket < h.bucketCount() && LatencyHistogram.bucketUpperBound(bucket) <= boundMicros) {
+                cumulative += h.bucketCountAt(bucket++);
+            }
+            writeSample(sb, name + "_bucket", labels, "le=\"" + bound + "\"", cumulative);
+        }
+        long count = h.getCount();
+        writeSample(sb, name + "_bucket", labels, "le=\"+Inf\"", count);
+        sb.append(name).append("_sum").append(braces(labels, null)).append(' ')
+                .append(h.getTotalMicros() / 1_000_000.0).append('\n');
+        writeSample(sb, name + "_count", labels, null, count);
+    }
+
+    private static void writeSample(StringBuilder sb, String name, String labels, String extra, long value) {
+        sb.append(name).append(braces(labels, extra)).append(' ').append(value).append('\n');
+    }
+
+    private static String braces(String labels, String extra) {
+        if (labels.isEmpty() && extra == null) return "";
+        if (labels.isEmpty()) return "{" + extra + "}";
+        if (extra == null) return "{" + labels + "}";
+        return "{" + labels + "," + extra + "}";
+    }
+
+    private static String renderLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be key/value pairs");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String value) {
+        if (value == null) return "";
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class Family {
+        final String name;
+        final String help;
+        final String type;
+        final ConcurrentMap<String, Object> series = new ConcurrentHashMap<>();
+
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
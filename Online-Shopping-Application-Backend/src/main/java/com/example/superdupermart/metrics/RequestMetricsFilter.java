@@ -0,0 +1,52 @@
+package com.example.superdupermart.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 按路由模板（如 /orders/{id}）记录请求耗时与该请求发出的 SQL 条数
+ * 放在安全过滤链之前，耗时包含鉴权；未匹配到控制器的请求归入 UNMATCHED
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    static final String REQUEST_DURATION = "http_server_requests_seconds";
+    static final String SQL_STATEMENTS = "http_server_sql_statements_total";
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementCounter.reset();
+        long start = System.nanoTime();
+        int status = 500;
+        try {
+            filterChain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String route = pattern != null ? pattern.toString() : "UNMATCHED";
+            String method = request.getMethod();
+            metricsRegistry.histogram(REQUEST_DURATION, "HTTP request latency by route",
+                    "method", method, "route", route, "status", String.valueOf(status)).recordNanos(elapsed);
+            metricsRegistry.counter(SQL_STATEMENTS, "SQL statements prepared while serving the route",
+                    "method", method, "route", route).add(SqlStatementCounter.reset());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.superdupermart.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate 每准备一条 SQL 调用一次，按线程累计条数
+ * RequestMetricsFilter 在请求开始时清零、结束时读取，得到单个请求发出的 SQL 条数
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * 返回当前线程累计的条数并清零
+     */
+    public static int reset() {
+        int[] count = COUNT.get();
+        int value = count[0];
+        count[0] = 0;
+        return value;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.superdupermart.metrics;
+
+import org.springframework.orm.hibernate5.HibernateTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 记录每个新事务从开始到提交/回滚完成的耗时，按事务名（Service.method）与结果区分
+ */
+public class TimedHibernateTransactionManager extends HibernateTransactionManager {
+
+    static final String TRANSACTION_DURATION = "db_transaction_seconds";
+
+    private final MetricsRegistry metricsRegistry;
+
+    public TimedHibernateTransactionManager(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    @Override
+    protected void prepareSynchronization(DefaultTransactionStatus status, TransactionDefinition definition) {
+        super.prepareSynchronization(status, definition);
+        if (status.isNewTransaction() && status.isNewSynchronization()) {
+            String name = shortName(definition.getName());
+            long start = System.nanoTime();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int completion) {
+                    String outcome = completion == STATUS_COMMITTED ? "committed"
+                            : completion == STATUS_ROLLED_BACK ? "rolled_back" : "unknown";
+                    metricsRegistry.histogram(TRANSACTION_DURATION, "Transaction duration from begin to completion",
+                            "name", name, "outcome", outcome).recordNanos(System.nanoTime() - start);
+                }
+            });
+        }
+    }
+
+    // com.example.superdupermart.service.OrderService.placeOrder -> OrderService.placeOrder
+    private static String shortName(String name) {
+        if (name == null) return "unnamed";
+        int method = name.lastIndexOf('.');
+        int type = method > 0 ? name.lastIndexOf('.', method - 1) : -1;
+        return type >= 0 ? name.substring(type + 1) : name;
+    }
+}
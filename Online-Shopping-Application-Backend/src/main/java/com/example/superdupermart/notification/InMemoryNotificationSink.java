@@ -0,0 +1,69 @@
+package com.example.superdupermart.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 进程内投递：只记录日志并保留最近的投递记录，用于本地开发与测试
+ */
+public class InMemoryNotificationSink implements NotificationSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryNotificationSink.class);
+
+    private static final int MAX_DELIVERIES = 1000;
+
+    private final Deque<Delivery> deliveries = new ArrayDeque<>();
+
+    @Override
+    public void deliver(Long userId, List<ProductNotification> notifications) {
+        logger.info("Notify user {}: {}", userId, notifications);
+        synchronized (deliveries) {
+            if (deliveries.size() >= MAX_DELIVERIES) {
+                deliveries.removeFirst();
+            }
+            deliveries.addLast(new Delivery(userId, new ArrayList<>(notifications)));
+        }
+    }
+
+    /**
+     * 最近的投递记录（按投递顺序）
+     */
+    public List<Delivery> getDeliveries() {
+        synchronized (deliveries) {
+            return new ArrayList<>(deliveries);
+        }
+    }
+
+    public void clear() {
+        synchronized (deliveries) {
+            deliveries.clear();
+        }
+    }
+
+    /**
+     * 一次投递：用户 + 该用户这一批的通知
+     */
+    public static final class Delivery {
+        private final Long userId;
+        private final List<ProductNotification> notifications;
+
+        Delivery(Long userId, List<ProductNotification> notifications) {
+            this.userId = userId;
+            this.notifications = Collections.unmodifiableList(notifications);
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public List<ProductNotification> getNotifications() {
+            return notifications;
+        }
+    }
+}
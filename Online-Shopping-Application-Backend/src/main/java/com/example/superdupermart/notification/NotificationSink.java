@@ -0,0 +1,14 @@
+package com.example.superdupermart.notification;
+
+import java.util.List;
+
+/**
+ * 通知投递方式（邮件、推送等）；由 WatchNotificationDispatcher 在后台线程调用，每个用户每批调用一次
+ */
+public interface NotificationSink {
+
+    /**
+     * 把同一批中属于该用户的通知一起投递；抛出异常只影响该用户的这一批
+     */
+    void deliver(Long userId, List<ProductNotification> notifications);
+}
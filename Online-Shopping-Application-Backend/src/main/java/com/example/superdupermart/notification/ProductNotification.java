@@ -0,0 +1,60 @@
+package com.example.superdupermart.notification;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 收藏商品的变化通知：到货（库存从 0 变为正数）或降价（零售价降低）
+ */
+public class ProductNotification {
+
+    public enum Type {
+        BACK_IN_STOCK,
+        PRICE_DROP
+    }
+
+    private final Type type;
+    private final Long productId;
+    private final String productName;
+    private final BigDecimal oldPrice;
+    private final BigDecimal newPrice;
+    private final LocalDateTime occurredAt = LocalDateTime.now();
+
+    public ProductNotification(Type type, Long productId, String productName, BigDecimal oldPrice, BigDecimal newPrice) {
+        this.type = type;
+        this.productId = productId;
+        this.productName = productName;
+        this.oldPrice = oldPrice;
+        this.newPrice = newPrice;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public BigDecimal getOldPrice() {
+        return oldPrice;
+    }
+
+    public BigDecimal getNewPrice() {
+        return newPrice;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + productId + " (" + productName + ")"
+                + (type == Type.PRICE_DROP ? " " + oldPrice + " -> " + newPrice : "");
+    }
+}
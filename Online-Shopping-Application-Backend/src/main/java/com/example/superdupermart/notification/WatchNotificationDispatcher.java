@@ -0,0 +1,137 @@
+package com.example.superdupermart.notification;
+
+import com.example.superdupermart.metrics.MetricsRegistry;
+import com.example.superdupermart.service.ProductWatchers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 收藏商品通知的分发：商品变化事件进入有界队列，由单个后台线程批量取出
+ * - 每批等待最多 linger-ms 凑满 batch-size 个事件，按 ProductWatchers 扇出到收藏用户，再按用户合并，每个用户每批投递一次
+ * - 队列满时丢弃新事件并计数（通知是尽力而为的，不能阻塞商品修改）
+ */
+@Component
+public class WatchNotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(WatchNotificationDispatcher.class);
+
+    @Autowired
+    private ProductWatchers productWatchers;
+
+    @Autowired
+    private NotificationSink sink;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Value("${app.notifications.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.notifications.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.notifications.linger-ms:200}")
+    private long lingerMillis;
+
+    private BlockingQueue<ProductNotification> queue;
+    private Thread worker;
+
+    private LongAdder enqueued;
+    private LongAdder dropped;
+    private LongAdder delivered;
+    private LongAdder failed;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        String help = "Watchlist notifications by outcome";
+        enqueued = metricsRegistry.counter("watch_notifications_total", help, "outcome", "enqueued");
+        dropped = metricsRegistry.counter("watch_notifications_total", help, "outcome", "dropped");
+        delivered = metricsRegistry.counter("watch_notifications_total", help, "outcome", "delivered");
+        failed = metricsRegistry.counter("watch_notifications_total", help, "outcome", "failed");
+        metricsRegistry.gauge("watch_notifications_queue_size", "Watchlist notifications waiting for dispatch",
+                () -> queue.size());
+
+        worker = new Thread(this::run, "watch-notifications");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.interrupt();
+    }
+
+    /**
+     * 登记一个商品变化事件（调用方在事务提交后调用），不阻塞
+     */
+    public void publish(ProductNotification notification) {
+        if (queue.offer(notification)) {
+            enqueued.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private void run() {
+        List<ProductNotification> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    ProductNotification next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                logger.error("Failed to dispatch {} watchlist notifications", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void dispatch(List<ProductNotification> batch) {
+        // userId -> 该用户这一批的通知（按事件顺序）
+        Map<Long, List<ProductNotification>> byUser = new LinkedHashMap<>();
+        for (ProductNotification notification : batch) {
+            for (long userId : productWatchers.get(notification.getProductId())) {
+                byUser.computeIfAbsent(userId, k -> new ArrayList<>()).add(notification);
+            }
+        }
+        for (Map.Entry<Long, List<ProductNotification>> e : byUser.entrySet()) {
+            try {
+                sink.deliver(e.getKey(), e.getValue());
+                delivered.add(e.getValue().size());
+            } catch (RuntimeException ex) {
+                failed.add(e.getValue().size());
+                logger.warn("Failed to notify user {}: {}", e.getKey(), ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.superdupermart.security;
+
+/**
+ * 已验签的 Token 内容（不可变），每个请求只解析一次
+ */
+public final class JwtClaims {
+
+    private final Long userId;
+    private final String email;
+    private final String role;
+    private final long expiresAtMillis;
+
+    public JwtClaims(Long userId, String email, String role, long expiresAtMillis) {
+        this.userId = userId;
+        this.email = email;
+        this.role = role;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+}
@@ -4,7 +4,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -33,26 +32,24 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
-            String email = jwtTokenUtil.extractEmail(token);
+            // 只验签解析一次（命中缓存时不验签）
+            JwtClaims claims = jwtTokenUtil.parseToken(token);
 
             // 检查 token 有效性并设置认证上下文
-            if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                if (jwtTokenUtil.validateToken(token, email)) {
-                    // 从 token 中提取角色
-                    String role = jwtTokenUtil.extractRole(token);
-                    List<SimpleGrantedAuthority> authorities = Collections.singletonList(
-                            new SimpleGrantedAuthority(role != null ? role : "USER")
-                    );
-                    
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(
-                                    new User(email, "", authorities),
-                                    null,
-                                    authorities
-                            );
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                }
+            if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                String role = claims.getRole();
+                List<SimpleGrantedAuthority> authorities = Collections.singletonList(
+                        new SimpleGrantedAuthority(role != null ? role : "USER")
+                );
+
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(
+                                new AuthenticatedUser(claims.getUserId(), claims.getEmail(), authorities),
+                                null,
+                                authorities
+                        );
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         }
 
@@ -1,24 +1,41 @@
 package com.example.superdupermart.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenUtil {
 
     private final String SECRET_KEY = "superdupermart-secret-key"; // ✅ 自定义密钥
     private final long EXPIRATION_TIME = 24 * 60 * 60 * 1000; // 1天有效期
+    private static final int MAX_CACHED_TOKENS = 10_000; // 已验签 Token 缓存上限
+
+    // Token 的 SHA-256 -> 已验签的 Claims：每个条目在 Token 的 exp 到达时过期，超出上限时淘汰不常用的条目
+    private final Cache<String, JwtClaims> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_TOKENS)
+            .expireAfter(new UntilTokenExpires())
+            .build();
 
     /**
      * 生成Token
      */
-    public String generateToken(String email, String role) {
+    public String generateToken(Long userId, String email, String role) {
         return Jwts.builder()
                 .setSubject(email)
+                .claim("userId", userId)
                 .claim("role", role)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
@@ -26,32 +43,65 @@ public class JwtTokenUtil {
                 .compact();
     }
 
+    /**
+     * 验签并解析Token，无效或已过期时返回 null
+     * 同一 Token 在有效期内只验签一次，之后直接命中缓存
+     */
+    public JwtClaims parseToken(String token) {
+        long now = System.currentTimeMillis();
+        String key = hash(token);
+        JwtClaims cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached.isExpired(now) ? null : cached;
+        }
+
+        JwtClaims claims;
+        try {
+            Claims body = getClaims(token);
+            Number userId = body.get("userId", Number.class);
+            claims = new JwtClaims(userId == null ? null : userId.longValue(),
+                    body.getSubject(), (String) body.get("role"),
+                    body.getExpiration() == null ? now : body.getExpiration().getTime());
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (claims.getEmail() == null || claims.isExpired(now)) {
+            return null;
+        }
+
+        verifiedTokens.put(key, claims);
+        return claims;
+    }
+
     /**
      * 从Token中解析用户名（email）
      */
     public String extractEmail(String token) {
-        return getClaims(token).getSubject();
+        JwtClaims claims = parseToken(token);
+        return claims == null ? null : claims.getEmail();
     }
 
     /**
      * 从Token中解析角色
      */
     public String extractRole(String token) {
-        return (String) getClaims(token).get("role");
+        JwtClaims claims = parseToken(token);
+        return claims == null ? null : claims.getRole();
     }
 
     /**
      * 验证Token是否过期
      */
     public boolean isTokenExpired(String token) {
-        return getClaims(token).getExpiration().before(new Date());
+        return parseToken(token) == null;
     }
 
     /**
      * 验证Token合法性
      */
     public boolean validateToken(String token, String email) {
-        return (email.equals(extractEmail(token)) && !isTokenExpired(token));
+        JwtClaims claims = parseToken(token);
+        return claims != null && email.equals(claims.getEmail());
     }
 
     private Claims getClaims(String token) {
@@ -60,4 +110,35 @@ public class JwtTokenUtil {
                 .parseClaimsJws(token)
                 .getBody();
     }
-}
\ No newline at end of file
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 缓存条目的存活时间 = 距 Token exp 的剩余时间（读取不延长）
+     */
+    private static final class UntilTokenExpires implements Expiry<String, JwtClaims> {
+        @Override
+        public long expireAfterCreate(String key, JwtClaims claims, long currentTime) {
+            long remaining = claims.getExpiresAtMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, JwtClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
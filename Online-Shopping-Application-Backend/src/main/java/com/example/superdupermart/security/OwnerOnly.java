@@ -0,0 +1,25 @@
+package com.example.superdupermart.security;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明式归属校验：方法参数 param 指定的 userId 必须是当前登录用户（管理员不受限）
+ * 由 OwnershipAspect 基于 Token 中的 userId 校验，不查询数据库
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OwnerOnly {
+
+    /**
+     * 承载 userId 的方法参数名
+     */
+    String param() default "userId";
+
+    /**
+     * 校验失败时的错误信息
+     */
+    String message() default "You can only access your own data";
+}
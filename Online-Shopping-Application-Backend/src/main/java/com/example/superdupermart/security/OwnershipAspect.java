@@ -0,0 +1,43 @@
+package com.example.superdupermart.security;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class OwnershipAspect {
+
+    /**
+     * 在 @OwnerOnly 方法执行前比较请求中的 userId 与 Token 中的 userId
+     */
+    @Before("@annotation(ownerOnly)")
+    public void checkOwnership(JoinPoint joinPoint, OwnerOnly ownerOnly) {
+        AuthenticatedUser currentUser = AuthenticatedUser.current();
+        if (currentUser == null) {
+            throw new RuntimeException("Authentication required");
+        }
+        if (currentUser.isAdmin()) {
+            return;
+        }
+
+        Object requested = findArgument(joinPoint, ownerOnly.param());
+        // 旧版 Token 不含 userId，需要重新登录
+        if (currentUser.getUserId() == null || !currentUser.getUserId().equals(requested)) {
+            throw new RuntimeException(ownerOnly.message());
+        }
+    }
+
+    private Object findArgument(JoinPoint joinPoint, String name) {
+        String[] names = ((MethodSignature) joinPoint.getSignature()).getParameterNames();
+        Object[] args = joinPoint.getArgs();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return args[i];
+            }
+        }
+        throw new IllegalStateException("@OwnerOnly parameter not found: " + name);
+    }
+}
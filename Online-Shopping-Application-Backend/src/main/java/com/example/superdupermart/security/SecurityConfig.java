@@ -32,7 +32,7 @@ public class SecurityConfig {
                 // 公共接口放行
                 .antMatchers("/signup", "/login").permitAll()
                 // 仅 ADMIN 可访问
-                .antMatchers("/admin/**").hasAuthority("ADMIN")
+                .antMatchers("/admin/**", "/actuator/**").hasAuthority("ADMIN")
                 // 其他所有接口都要验证
                 .anyRequest().authenticated()
                 .and()
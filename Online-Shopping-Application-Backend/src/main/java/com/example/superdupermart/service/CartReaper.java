@@ -0,0 +1,106 @@
+package com.example.superdupermart.service;
+
+import com.example.superdupermart.dao.CartDao;
+import com.example.superdupermart.metrics.LatencyHistogram;
+import com.example.superdupermart.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 过期购物车清理：定期删除 updatedAt 超过 TTL 的购物车及其购物项
+ * - 每块最多 chunk-size 个购物车，一块一个短事务（锁定、删购物项、删购物车），块之间暂停 pause-ms，避免长时间持锁
+ * - 单次运行最多 max-chunks-per-run 块，剩余的留到下一次
+ * - 购物车的每次修改都会刷新 updatedAt（见 CartDao.touch / upsertForUser），正在使用的购物车不会被清理
+ */
+@Service
+public class CartReaper {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartReaper.class);
+
+    @Autowired
+    private CartDao cartDao;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Value("${app.cart-reaper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cart-reaper.ttl-days:30}")
+    private int ttlDays;
+
+    @Value("${app.cart-reaper.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.cart-reaper.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+
+    @Value("${app.cart-reaper.pause-ms:50}")
+    private long pauseMillis;
+
+    private TransactionTemplate chunkTransaction;
+
+    private LongAdder cartsDeleted;
+    private LongAdder cartItemsDeleted;
+    private LatencyHistogram runDuration;
+
+    @PostConstruct
+    public void init() {
+        chunkTransaction = new TransactionTemplate(transactionManager);
+        cartsDeleted = metricsRegistry.counter("cart_reaper_deleted_rows_total",
+                "Rows deleted by the abandoned cart reaper", "table", "carts");
+        cartItemsDeleted = metricsRegistry.counter("cart_reaper_deleted_rows_total",
+                "Rows deleted by the abandoned cart reaper", "table", "cart_items");
+        runDuration = metricsRegistry.histogram("cart_reaper_run_seconds", "Abandoned cart reaper run duration");
+    }
+
+    @Scheduled(initialDelayString = "${app.cart-reaper.initial-delay-ms:300000}",
+            fixedDelayString = "${app.cart-reaper.interval-ms:3600000}")
+    public void reap() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(ttlDays);
+        long start = System.nanoTime();
+        long carts = 0;
+        long items = 0;
+        try {
+            for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+                int[] deleted = chunkTransaction.execute(status -> {
+                    List<Long> ids = cartDao.lockIdleCartIds(cutoff, chunkSize);
+                    return cartDao.deleteCarts(ids);
+                });
+                items += deleted[0];
+                carts += deleted[1];
+                cartItemsDeleted.add(deleted[0]);
+                cartsDeleted.add(deleted[1]);
+                if (deleted[1] < chunkSize) {
+                    break;
+                }
+                TimeUnit.MILLISECONDS.sleep(pauseMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            runDuration.recordNanos(System.nanoTime() - start);
+        }
+        if (carts > 0) {
+            logger.info("Reaped {} carts and {} cart items idle since {}", carts, items, cutoff);
+        }
+    }
+}
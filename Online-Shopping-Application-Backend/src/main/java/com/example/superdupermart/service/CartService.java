@@ -4,6 +4,10 @@ import com.example.superdupermart.dao.CartDao;
 import com.example.superdupermart.dao.CartItemDao;
 import com.example.superdupermart.dao.ProductDao;
 import com.example.superdupermart.dao.UserDao;
+import com.example.superdupermart.dto.CartItemDTO;
+import com.example.superdupermart.dto.CartLineOperationDTO;
+import com.example.superdupermart.dto.CartResponseDTO;
+import com.example.superdupermart.dto.CartSyncRequestDTO;
 import com.example.superdupermart.entity.Cart;
 import com.example.superdupermart.entity.CartItem;
 import com.example.superdupermart.entity.Product;
@@ -12,12 +16,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Transactional
 public class CartService {
 
+    // 一次批量修改最多包含的操作数
+    private static final int MAX_LINE_OPERATIONS = 200;
+
     @Autowired
     private CartDao cartDao;
 
@@ -30,60 +41,234 @@ public class CartService {
     @Autowired
     private UserDao userDao;
 
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
     /**
-     * 获取用户购物车中所有商品
+     * 获取用户购物车（购物项 + 汇总 + 版本号）
      */
-    public List<CartItem> getCartItems(Long userId) {
+    public CartResponseDTO getCart(Long userId) {
         User user = userDao.findById(userId);
         if (user == null) {
             throw new RuntimeException("User not found");
         }
-        Cart cart = cartDao.findByUser(user);
-        if (cart == null) {
-            // 如果购物车不存在，返回空列表（而不是抛出异常）
-            return java.util.Collections.emptyList();
-        }
-        return cartItemDao.findByCart(cart);
+        return loadCart(userId);
+    }
+
+    private CartResponseDTO loadCart(Long userId) {
+        // 列表项由 HQL 构造器投影直接得到，这里只做汇总；没有购物车时为空列表
+        List<CartItemDTO> items = cartItemDao.findItemDTOsByUserId(userId);
+        CartResponseDTO dto = new CartResponseDTO();
+        dto.setUserId(userId);
+        dto.setItems(items);
+        dto.setTotalItems(items.stream().mapToInt(CartItemDTO::getQuantity).sum());
+        dto.setTotalPrice(items.stream().mapToDouble(i -> i.getPrice() * i.getQuantity()).sum());
+        dto.setVersion(cartDao.findVersionByUserId(userId));
+        return dto;
     }
 
     /**
      * 添加商品到购物车
+     * 用户走二级缓存、商品查目录快照；写入是两条 upsert（购物车、购物项），并发加购同一商品只会累加数量
      */
     public void addToCart(Long userId, Long productId, int quantity) {
+        if (quantity <= 0) {
+            throw new RuntimeException("Quantity must be positive");
+        }
         User user = userDao.findById(userId);
-        Product product = productDao.findById(productId);
-        if (user == null || product == null) {
+        if (user == null || catalogSnapshot.current().get(productId) == null) {
             throw new RuntimeException("User or Product not found");
         }
 
-        Cart cart = cartDao.findByUser(user);
-        if (cart == null) {
-            cart = new Cart();
-            cart.setUser(user);
-            cartDao.save(cart);
-        }
-
-        CartItem existingItem = cartItemDao.findByCartAndProduct(cart, product);
-        if (existingItem != null) {
-            existingItem.setQuantity(existingItem.getQuantity() + quantity);
-            cartItemDao.update(existingItem);
-        } else {
-            CartItem newItem = new CartItem();
-            newItem.setCart(cart);
-            newItem.setProduct(product);
-            newItem.setQuantity(quantity);
-            cartItemDao.save(newItem);
+        cartDao.upsertForUser(userId);
+        cartItemDao.addQuantity(userId, productId, quantity);
+    }
+
+    /**
+     * 批量修改购物车（一个事务）：按顺序把同一商品的多条操作合并为一个最终变更，再按类型各执行一条语句
+     * 返回修改后的购物车
+     */
+    public CartResponseDTO applyLineOperations(Long userId, List<CartLineOperationDTO> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new RuntimeException("No cart operations");
+        }
+        if (operations.size() > MAX_LINE_OPERATIONS) {
+            throw new RuntimeException("Too many cart operations, at most " + MAX_LINE_OPERATIONS + " allowed");
+        }
+        if (userDao.findById(userId) == null) {
+            throw new RuntimeException("User not found");
+        }
+
+        // productId -> 最终变更
+        Map<Long, LineChange> changes = new LinkedHashMap<>();
+        for (CartLineOperationDTO op : operations) {
+            changes.compute(requireProductId(op), (id, previous) -> LineChange.apply(previous, op));
+        }
+
+        Map<Long, Integer> setQuantities = new LinkedHashMap<>();
+        Map<Long, Integer> addQuantities = new LinkedHashMap<>();
+        Map<Long, Integer> subtractQuantities = new LinkedHashMap<>();
+        List<Long> removeIds = new ArrayList<>();
+        CatalogSnapshot.Snapshot catalog = catalogSnapshot.current();
+        for (Map.Entry<Long, LineChange> e : changes.entrySet()) {
+            Long productId = e.getKey();
+            LineChange change = e.getValue();
+            if (change.quantity > 0 && catalog.get(productId) == null) {
+                throw new RuntimeException("Product not found: " + productId);
+            }
+            if (change.absolute) {
+                if (change.quantity > 0) {
+                    setQuantities.put(productId, change.quantity);
+                } else {
+                    removeIds.add(productId);
+                }
+            } else if (change.quantity > 0) {
+                addQuantities.put(productId, change.quantity);
+            } else if (change.quantity < 0) {
+                subtractQuantities.put(productId, -change.quantity);
+            }
+        }
+
+        cartDao.upsertForUser(userId);
+        cartItemDao.upsertLines(userId, setQuantities, addQuantities);
+        cartItemDao.subtractQuantities(userId, subtractQuantities);
+        cartItemDao.deleteLines(userId, removeIds, subtractQuantities.keySet());
+        return loadCart(userId);
+    }
+
+    /**
+     * 同步客户端本地购物车，返回合并后的购物车与新版本号
+     * - version 为 null（游客购物车登录后合并）：本地有而服务端没有的商品加入，两边都有的取较大数量
+     * - version 不为 null：本地购物车是基于该版本修改后的完整内容，服务端版本已变化时拒绝，客户端需重新获取后再同步
+     * 只把与数据库中不同的行写回（一条 upsert + 一条 delete），写之前用版本号做乐观检查，不加锁读取
+     */
+    public CartResponseDTO syncCart(Long userId, CartSyncRequestDTO request) {
+        if (userDao.findById(userId) == null) {
+            throw new RuntimeException("User not found");
+        }
+        List<CartSyncRequestDTO.Item> items = request == null || request.getItems() == null
+                ? new ArrayList<>() : request.getItems();
+        if (items.size() > MAX_LINE_OPERATIONS) {
+            throw new RuntimeException("Too many cart items, at most " + MAX_LINE_OPERATIONS + " allowed");
+        }
+        Long baseVersion = request == null ? null : request.getVersion();
+
+        Long version = cartDao.findVersionByUserId(userId);
+        if (baseVersion != null && !baseVersion.equals(version)) {
+            throw new RuntimeException("Cart was changed concurrently, please reload and sync again");
+        }
+
+        Map<Long, Integer> persisted = new LinkedHashMap<>();
+        for (CartItemDTO item : cartItemDao.findItemDTOsByUserId(userId)) {
+            persisted.put(item.getProductId(), item.getQuantity());
+        }
+
+        // 期望的最终购物车：已下架的商品直接丢弃
+        CatalogSnapshot.Snapshot catalog = catalogSnapshot.current();
+        Map<Long, Integer> desired = baseVersion == null ? new LinkedHashMap<>(persisted) : new LinkedHashMap<>();
+        for (CartSyncRequestDTO.Item item : items) {
+            if (item == null || item.getProductId() == null) {
+                throw new RuntimeException("Product id is required");
+            }
+            if (item.getQuantity() < 0) {
+                throw new RuntimeException("Invalid quantity for product: " + item.getProductId());
+            }
+            if (item.getQuantity() == 0 || catalog.get(item.getProductId()) == null) {
+                continue;
+            }
+            if (baseVersion == null) {
+                desired.merge(item.getProductId(), item.getQuantity(), Math::max);
+            } else {
+                desired.put(item.getProductId(), item.getQuantity());
+            }
+        }
+
+        Map<Long, Integer> setQuantities = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> e : desired.entrySet()) {
+            if (!e.getValue().equals(persisted.get(e.getKey()))) {
+                setQuantities.put(e.getKey(), e.getValue());
+            }
+        }
+        List<Long> removeIds = new ArrayList<>();
+        for (Long productId : persisted.keySet()) {
+            if (!desired.containsKey(productId)) {
+                removeIds.add(productId);
+            }
+        }
+        if (setQuantities.isEmpty() && removeIds.isEmpty()) {
+            return loadCart(userId);
+        }
+
+        if (version == null) {
+            cartDao.createIfAbsent(userId);
+            version = 0L;
+        }
+        // 读取之后购物车又被修改过（包括并发创建）：放弃本次写入
+        if (cartDao.bumpVersion(userId, version) == 0) {
+            throw new RuntimeException("Cart was changed concurrently, please reload and sync again");
+        }
+        cartItemDao.upsertLines(userId, setQuantities, Collections.emptyMap());
+        cartItemDao.deleteLines(userId, removeIds, Collections.emptyList());
+        return loadCart(userId);
+    }
+
+    private static Long requireProductId(CartLineOperationDTO op) {
+        if (op == null || op.getProductId() == null) {
+            throw new RuntimeException("Product id is required");
+        }
+        return op.getProductId();
+    }
+
+    /**
+     * 一个商品合并后的变更：absolute 为 true 时数量设为 quantity（0 表示删除），否则数量增减 quantity
+     */
+    static final class LineChange {
+        final boolean absolute;
+        final int quantity;
+
+        LineChange(boolean absolute, int quantity) {
+            this.absolute = absolute;
+            this.quantity = quantity;
+        }
+
+        static LineChange apply(LineChange previous, CartLineOperationDTO op) {
+            boolean remove = Boolean.TRUE.equals(op.getRemove());
+            int kinds = (op.getDelta() != null ? 1 : 0) + (op.getSetQuantity() != null ? 1 : 0) + (remove ? 1 : 0);
+            if (kinds != 1) {
+                throw new RuntimeException("Each cart operation needs exactly one of delta, setQuantity or remove");
+            }
+            if (remove) {
+                return new LineChange(true, 0);
+            }
+            if (op.getSetQuantity() != null) {
+                if (op.getSetQuantity() < 0) {
+                    throw new RuntimeException("Invalid quantity for product: " + op.getProductId());
+                }
+                return new LineChange(true, op.getSetQuantity());
+            }
+            if (previous == null) {
+                return new LineChange(false, op.getDelta());
+            }
+            int quantity = previous.quantity + op.getDelta();
+            // 在“设为”之后再增减，结果仍是确定的数量
+            return new LineChange(previous.absolute, previous.absolute ? Math.max(quantity, 0) : quantity);
         }
     }
 
     /**
      * 更新购物车中某项商品数量
      */
-    public void updateQuantity(Long cartItemId, int newQuantity) {
+    public void updateQuantity(Long userId, Long cartItemId, int newQuantity) {
         CartItem item = cartItemDao.findById(cartItemId);
         if (item == null) {
             throw new RuntimeException("CartItem not found");
         }
+        // 购物项必须属于该用户的购物车，否则推进的是另一个购物车的版本，回收任务与同步接口都看不到这次修改
+        if (!userId.equals(item.getCart().getUser().getUserId())) {
+            throw new RuntimeException("You can only access your own cart");
+        }
+        // 先推进购物车版本（同时锁住购物车行），再修改购物项
+        cartDao.touch(userId);
         item.setQuantity(newQuantity);
         cartItemDao.update(item);
     }
@@ -106,24 +291,18 @@ public class CartService {
         }
         CartItem item = cartItemDao.findByCartAndProduct(cart, product);
         if (item != null) {
+            cartDao.touch(userId);
             cartItemDao.delete(item);
         }
     }
 
     /**
-     * 清空购物车
+     * 清空购物车，返回删除的购物项数
      */
-    public void clearCart(Long userId) {
-        User user = userDao.findById(userId);
-        if (user == null) {
+    public int clearCart(Long userId) {
+        if (userDao.findById(userId) == null) {
             throw new RuntimeException("User not found");
         }
-        Cart cart = cartDao.findByUser(user);
-        if (cart != null) {
-            List<CartItem> items = cartItemDao.findByCart(cart);
-            for (CartItem item : items) {
-                cartItemDao.delete(item);
-            }
-        }
+        return cartDao.clearCart(userId);
     }
-}
\ No newline at end of file
+}
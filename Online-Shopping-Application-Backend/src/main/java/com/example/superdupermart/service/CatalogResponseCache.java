@@ -0,0 +1,148 @@
+package com.example.superdupermart.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 商品接口响应字节缓存：同一目录版本下，同一视图/参数的响应只做一次 JSON 序列化和 gzip 压缩
+ * - 缓存只保留当前目录版本，版本变化后整体丢弃，随后的第一次请求重新生成
+ * - 条目数有上限，超出后不再缓存（只有列表首页和热门商品详情会被反复请求）
+ */
+@Component
+public class CatalogResponseCache {
+
+    private static final int MAX_ENTRIES = 1024;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final AtomicReference<Generation> generation = new AtomicReference<>(new Generation(Long.MIN_VALUE));
+
+    /**
+     * 读取（不存在时生成）某个目录版本下 key 对应的响应；请求持有的快照已过期时只生成不缓存
+     */
+    public CachedResponse get(long version, String key, Supplier<Object> body) {
+        Generation current = generation.get();
+        while (current.version < version) {
+            Generation next = new Generation(version);
+            if (generation.compareAndSet(current, next)) {
+                current = next;
+            } else {
+                current = generation.get();
+            }
+        }
+        if (current.version != version) {
+            return serialize(body.get());
+        }
+        CachedResponse cached = current.responses.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        cached = serialize(body.get());
+        if (current.responses.size() < MAX_ENTRIES) {
+            CachedResponse existing = current.responses.putIfAbsent(key, cached);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * 序列化一个不缓存的响应（带有按用户区分的内容时使用），只生成这次请求需要的编码，写出时须传入相同的 useGzip
+     */
+    public CachedResponse uncached(Object body, boolean useGzip) {
+        byte[] identity = toJson(body);
+        return useGzip ? new CachedResponse(null, gzip(identity)) : new CachedResponse(identity, null);
+    }
+
+    /**
+     * 客户端是否接受 gzip（忽略 q=0）
+     */
+    public static boolean acceptsGzip(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (header == null) {
+            return false;
+        }
+        for (String token : header.split(",")) {
+            String[] parts = token.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private CachedResponse serialize(Object body) {
+        byte[] identity = toJson(body);
+        return new CachedResponse(identity, gzip(identity));
+    }
+
+    private byte[] toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize response: " + e.getOriginalMessage());
+        }
+    }
+
+    private static byte[] gzip(byte[] identity) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(identity.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(identity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class Generation {
+        final long version;
+        final Map<String, CachedResponse> responses = new ConcurrentHashMap<>();
+
+        Generation(long version) {
+            this.version = version;
+        }
+    }
+
+    /**
+     * 已序列化的响应体（原文与 gzip 两种编码；不缓存的响应只有其中一种）
+     */
+    public static final class CachedResponse {
+        private final byte[] identity;
+        private final byte[] gzip;
+
+        CachedResponse(byte[] identity, byte[] gzip) {
+            this.identity = identity;
+            this.gzip = gzip;
+        }
+
+        /**
+         * 直接写入输出流，不经过 HttpMessageConverter（Vary: Accept-Encoding 由调用方设置）
+         */
+        public void writeTo(HttpServletResponse response, boolean useGzip) throws IOException {
+            byte[] body = useGzip ? gzip : identity;
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            if (useGzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+}
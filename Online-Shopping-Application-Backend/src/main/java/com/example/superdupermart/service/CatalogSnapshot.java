@@ -0,0 +1,372 @@
+package com.example.superdupermart.service;
+
+import com.example.superdupermart.dao.ProductDao;
+import com.example.superdupermart.dto.ProductRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * 商品目录的不可变快照（copy-on-write）
+ * - 读：列表、详情、搜索回表直接读当前快照，无锁、不访问数据库
+ * - 写：商品增删改、库存变化在事务提交后登记变更的 productId，由单个后台线程合并成一次刷新，
+ *   只重新读取变更的商品，生成新快照后整体替换（volatile 发布）
+ * - 快照中查不到的商品不会单独查库：等待已排队/进行中的那次刷新完成后再查，避免刷新期间并发未命中打到数据库
+ */
+@Service
+public class CatalogSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+    // 读者等待快照发布的最长时间
+    private static final long PUBLISH_TIMEOUT_SECONDS = 10;
+
+    private static final Comparator<ProductRecord> BY_NAME = Comparator
+            .comparing(ProductRecord::getName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(ProductRecord::getProductId);
+    private static final Comparator<ProductRecord> BY_PRICE = Comparator
+            .comparing(ProductRecord::getRetailPrice, Comparator.nullsFirst(Comparator.<BigDecimal>naturalOrder()))
+            .thenComparing(ProductRecord::getProductId);
+
+    @Autowired
+    private ProductDao productDao;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private volatile Snapshot snapshot;
+
+    // 待刷新的商品；fullRebuild 为 true 时整表重建
+    private final Set<Long> staleIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean fullRebuild = new AtomicBoolean(true);
+
+    // scheduled：已排队但尚未开始的刷新；running：正在执行的刷新（均由 scheduleLock 保护）
+    private final Object scheduleLock = new Object();
+    private CompletableFuture<Snapshot> scheduled;
+    private CompletableFuture<Snapshot> running;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "catalog-snapshot");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * 应用启动后构建首个快照（在此之前到达的读请求会等待同一次构建）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInitialSnapshot() {
+        schedule();
+    }
+
+    /**
+     * 当前快照；首个快照尚未构建完成时等待
+     */
+    public Snapshot current() {
+        Snapshot s = snapshot;
+        return s != null ? s : await(schedule());
+    }
+
+    /**
+     * 用于读取某个商品的快照：当前快照中没有该商品时，等待排队/进行中的刷新完成后返回新快照
+     * 调用方从返回的同一个快照中取记录和版本号，两者保持一致
+     */
+    public Snapshot lookup(Long productId) {
+        Snapshot current = current();
+        if (current.get(productId) != null) {
+            return current;
+        }
+        CompletableFuture<Snapshot> pending;
+        synchronized (scheduleLock) {
+            pending = scheduled != null ? scheduled : running;
+        }
+        return pending == null ? current : await(pending);
+    }
+
+    /**
+     * 事务提交后异步刷新这些商品（用于库存变化）
+     */
+    public void markStale(Collection<Long> productIds) {
+        Set<Long> ids = new HashSet<>(productIds);
+        IndexSupport.afterCommit(() -> {
+            staleIds.addAll(ids);
+            schedule();
+        });
+    }
+
+    /**
+     * 事务提交后刷新这些商品，并等待新快照发布（用于管理员修改，保证随后的读取能看到修改结果）
+     * 写入此时已经提交：等待超时或刷新失败只记日志，不抛异常（否则调用方会把成功的修改报告为失败，
+     * 并且之后注册的 afterCommit 回调不再执行）；刷新仍在后台完成
+     */
+    public void markStaleAndWait(Collection<Long> productIds) {
+        Set<Long> ids = new HashSet<>(productIds);
+        IndexSupport.afterCommit(() -> {
+            staleIds.addAll(ids);
+            try {
+                await(schedule());
+            } catch (RuntimeException e) {
+                logger.warn("Catalog snapshot was not published within {}s after updating products {}",
+                        PUBLISH_TIMEOUT_SECONDS, ids);
+            }
+        });
+    }
+
+    private CompletableFuture<Snapshot> schedule() {
+        synchronized (scheduleLock) {
+            if (scheduled == null) {
+                scheduled = new CompletableFuture<>();
+                worker.execute(this::refresh);
+            }
+            return scheduled;
+        }
+    }
+
+    /**
+     * 后台线程执行：取走目前为止登记的所有变更，一次读库后发布新快照
+     * 执行期间新登记的变更会排入下一次刷新
+     */
+    private void refresh() {
+        CompletableFuture<Snapshot> done;
+        synchronized (scheduleLock) {
+            done = scheduled;
+            scheduled = null;
+            running = done;
+        }
+        boolean full = fullRebuild.getAndSet(false);
+        Set<Long> ids = new HashSet<>();
+        for (Iterator<Long> it = staleIds.iterator(); it.hasNext(); ) {
+            ids.add(it.next());
+            it.remove();
+        }
+
+        try {
+            Snapshot base = snapshot;
+            // 首个版本取启动时间，重启后版本号不会与重启前发出的 ETag 重复
+            long version = base == null ? System.currentTimeMillis() : base.version + 1;
+            Snapshot next = readOnlyTransaction.execute(status -> full || base == null
+                    ? Snapshot.build(version, productDao.findAllRecords())
+                    : base.withChanges(version, ids, productDao.findRecordsByIds(ids)));
+            snapshot = next;
+            done.complete(next);
+        } catch (RuntimeException e) {
+            // 失败时把变更放回去，由下一次刷新重试
+            if (full) {
+                fullRebuild.set(true);
+            }
+            staleIds.addAll(ids);
+            logger.error("Failed to refresh catalog snapshot", e);
+            done.completeExceptionally(e);
+        } finally {
+            synchronized (scheduleLock) {
+                running = null;
+            }
+        }
+    }
+
+    private static Snapshot await(CompletableFuture<Snapshot> future) {
+        try {
+            return future.get(PUBLISH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Catalog is not available");
+        } catch (ExecutionException | TimeoutException e) {
+            throw new RuntimeException("Catalog is not available");
+        }
+    }
+
+    /**
+     * 不可变快照：按 productId 升序的记录数组 + ID 到下标的映射，以及按名称、价格排序的下标数组
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final ProductRecord[] records;
+        private final Map<Long, Integer> indexById;
+        private final int[] byName;
+        private final int[] byPrice;
+        // 下标 -> 在对应排序中的位置（用于按游标定位）
+        private final int[] nameRank;
+        private final int[] priceRank;
+
+        private Snapshot(long version, ProductRecord[] records, Map<Long, Integer> indexById,
+                         int[] byName, int[] byPrice, int[] nameRank, int[] priceRank) {
+            this.version = version;
+            this.records = records;
+            this.indexById = indexById;
+            this.byName = byName;
+            this.byPrice = byPrice;
+            this.nameRank = nameRank;
+            this.priceRank = priceRank;
+        }
+
+        static Snapshot build(long version, List<ProductRecord> list) {
+            ProductRecord[] records = list.toArray(new ProductRecord[0]);
+            Arrays.sort(records, Comparator.comparing(ProductRecord::getProductId));
+            Map<Long, Integer> indexById = new HashMap<>(records.length * 2);
+            for (int i = 0; i < records.length; i++) {
+                indexById.put(records[i].getProductId(), i);
+            }
+            int[] byName = sortedIndexes(records, BY_NAME);
+            int[] byPrice = sortedIndexes(records, BY_PRICE);
+            return new Snapshot(version, records, Collections.unmodifiableMap(indexById),
+                    byName, byPrice, ranks(byName), ranks(byPrice));
+        }
+
+        /**
+         * 在当前快照基础上应用变更：ids 为请求刷新的商品，loaded 为数据库中仍存在的那部分
+         * 只有库存等非排序字段变化时复用 ID 映射与排序数组，只复制记录数组
+         */
+        Snapshot withChanges(long version, Set<Long> ids, List<ProductRecord> loaded) {
+            Map<Long, ProductRecord> changed = new HashMap<>();
+            for (ProductRecord r : loaded) {
+                changed.put(r.getProductId(), r);
+            }
+
+            boolean sameOrder = true;
+            for (Long id : ids) {
+                Integer index = indexById.get(id);
+                ProductRecord updated = changed.get(id);
+                if (index == null || updated == null || !sameSortKeys(records[index], updated)) {
+                    sameOrder = false;
+                    break;
+                }
+            }
+            if (sameOrder) {
+                ProductRecord[] copy = records.clone();
+                for (ProductRecord r : loaded) {
+                    copy[indexById.get(r.getProductId())] = r;
+                }
+                return new Snapshot(version, copy, indexById, byName, byPrice, nameRank, priceRank);
+            }
+
+            List<ProductRecord> merged = new ArrayList<>(records.length + loaded.size());
+            for (ProductRecord r : records) {
+                if (!ids.contains(r.getProductId())) {
+                    merged.add(r);
+                }
+            }
+            merged.addAll(loaded);
+            return build(version, merged);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int size() {
+            return records.length;
+        }
+
+        public ProductRecord get(Long productId) {
+            Integer index = productId == null ? null : indexById.get(productId);
+            return index == null ? null : records[index];
+        }
+
+        /**
+         * 游标分页：after 为上一页最后一个商品的 productId，排序键 id / name / price
+         */
+        public List<ProductRecord> page(Long afterId, int limit, String sortKey, boolean inStockOnly) {
+            int[] order;
+            int[] rank;
+            if (sortKey == null || "id".equals(sortKey)) {
+                order = null;
+                rank = null;
+            } else if ("name".equals(sortKey)) {
+                order = byName;
+                rank = nameRank;
+            } else if ("price".equals(sortKey)) {
+                order = byPrice;
+                rank = priceRank;
+            } else {
+                throw new RuntimeException("Invalid sort key: " + sortKey);
+            }
+
+            int start = 0;
+            if (afterId != null) {
+                if (order == null) {
+                    // 按 ID 排序时游标商品即使已被删除也能定位
+                    start = firstIndexAfter(afterId);
+                } else {
+                    Integer index = indexById.get(afterId);
+                    if (index == null) {
+                        throw new RuntimeException("Invalid cursor: " + afterId);
+                    }
+                    start = rank[index] + 1;
+                }
+            }
+
+            List<ProductRecord> page = new ArrayList<>(Math.min(limit, 256));
+            for (int pos = start; pos < records.length && page.size() < limit; pos++) {
+                ProductRecord r = records[order == null ? pos : order[pos]];
+                if (!inStockOnly || r.getQuantity() > 0) {
+                    page.add(r);
+                }
+            }
+            return page;
+        }
+
+        private int firstIndexAfter(long productId) {
+            int lo = 0;
+            int hi = records.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (records[mid].getProductId() <= productId) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private static boolean sameSortKeys(ProductRecord a, ProductRecord b) {
+            if (!Objects.equals(a.getName(), b.getName())) {
+                return false;
+            }
+            BigDecimal pa = a.getRetailPrice();
+            BigDecimal pb = b.getRetailPrice();
+            return pa == null ? pb == null : pb != null && pa.compareTo(pb) == 0;
+        }
+
+        private static int[] sortedIndexes(ProductRecord[] records, Comparator<ProductRecord> comparator) {
+            return IntStream.range(0, records.length).boxed()
+                    .sorted((a, b) -> comparator.compare(records[a], records[b]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+
+        private static int[] ranks(int[] order) {
+            int[] rank = new int[order.length];
+            for (int pos = 0; pos < order.length; pos++) {
+                rank[order[pos]] = pos;
+            }
+            return rank;
+        }
+    }
+}
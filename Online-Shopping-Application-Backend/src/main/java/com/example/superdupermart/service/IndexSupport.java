@@ -0,0 +1,74 @@
+package com.example.superdupermart.service;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+
+/**
+ * 内存索引（搜索索引、目录快照、收藏集合、商品收藏者）共用的工具方法
+ */
+final class IndexSupport {
+
+    private IndexSupport() {
+    }
+
+    /**
+     * 事务提交成功后再执行（更新内存结构），回滚时不产生脏数据；没有事务时立即执行
+     */
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * 只读的独立事务，避免复用调用方事务中较早的一致性读视图
+     */
+    static TransactionTemplate readOnlyRequiresNew(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    /**
+     * 升序数组中加入 id（copy-on-write），已存在时返回原数组
+     */
+    static long[] with(long[] sorted, long id) {
+        int i = Arrays.binarySearch(sorted, id);
+        if (i >= 0) {
+            return sorted;
+        }
+        int at = -i - 1;
+        long[] next = new long[sorted.length + 1];
+        System.arraycopy(sorted, 0, next, 0, at);
+        next[at] = id;
+        System.arraycopy(sorted, at, next, at + 1, sorted.length - at);
+        return next;
+    }
+
+    /**
+     * 升序数组中移除 id（copy-on-write），不存在时返回原数组
+     */
+    static long[] without(long[] sorted, long id) {
+        int i = Arrays.binarySearch(sorted, id);
+        if (i < 0) {
+            return sorted;
+        }
+        long[] next = new long[sorted.length - 1];
+        System.arraycopy(sorted, 0, next, 0, i);
+        System.arraycopy(sorted, i + 1, next, i, sorted.length - i - 1);
+        return next;
+    }
+}
@@ -1,18 +1,28 @@
 package com.example.superdupermart.service;
 
 import com.example.superdupermart.dao.*;
+import com.example.superdupermart.dto.OrderItemDTO;
+import com.example.superdupermart.dto.OrderPageDTO;
+import com.example.superdupermart.dto.OrderResponseDTO;
 import com.example.superdupermart.entity.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Service
 public class OrderService {
 
+    private static final String[] ORDER_STATUSES = {"Processing", "Completed", "Canceled"};
+
     @Autowired
     private OrderDao orderDao;
 
@@ -31,6 +41,12 @@ public class OrderService {
     @Autowired
     private ProductDao productDao;
 
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
+    @Autowired
+    private StatsService statsService;
+
     /**
      * 用户下单（从购物车创建订单）
      */
@@ -57,13 +73,13 @@ public class OrderService {
         order.setDatePlaced(LocalDateTime.now());
         order.setOrderStatus("Processing");
 
+        Map<Long, Integer> stockToDeduct = new LinkedHashMap<>();
         for (CartItem cartItem : items) {
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
             orderItem.setProduct(cartItem.getProduct());
             orderItem.setQuantity(cartItem.getQuantity());
             
-            // 扣减库存
             Product product = cartItem.getProduct();
             if (product == null) {
                 throw new RuntimeException("Product not found in cart item");
@@ -83,22 +99,54 @@ public class OrderService {
             
             order.getOrderItems().add(orderItem);
 
-            if (product.getQuantity() == null || product.getQuantity() < cartItem.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
-            }
-            product.setQuantity(product.getQuantity() - cartItem.getQuantity());
-            productDao.update(product);
+            checkStock(product, cartItem.getQuantity());
+            stockToDeduct.merge(product.getProductId(), cartItem.getQuantity(), Integer::sum);
         }
 
+        // 扣减库存（条件更新，防止并发超卖）
+        deductStock(stockToDeduct);
+
         // 保存订单
         orderDao.save(order);
 
         // 清空购物车
-        cartDao.clearCart(user);
+        cartDao.clearCart(user.getUserId());
+    }
+
+    /**
+     * 用户下单（请求体中的 productId -> 数量，调用方已合并同一商品的多行）
+     * 所有商品一次批量加载，而不是每行查询一次
+     */
+    @Transactional(transactionManager = "transactionManager")
+    public void placeOrder(Long userId, Map<Long, Integer> quantities) {
+        User user = userDao.findById(userId);
+        if (user == null) {
+            throw new RuntimeException("User not found");
+        }
+        if (quantities.isEmpty()) {
+            throw new RuntimeException("Order is empty");
+        }
+
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productDao.findAllByIds(quantities.keySet())) {
+            products.put(product.getProductId(), product);
+        }
+        Set<OrderItem> items = new LinkedHashSet<>();
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Product product = products.get(line.getKey());
+            if (product == null) {
+                throw new RuntimeException("Product not found: " + line.getKey());
+            }
+            OrderItem item = new OrderItem();
+            item.setProduct(product);
+            item.setQuantity(line.getValue());
+            items.add(item);
+        }
+        placeOrder(user, items);
     }
 
     /**
-     * 用户下单（直接指定商品集合）
+     * 用户下单（直接指定商品集合）；同一商品的多行先合并为一行
      */
     @Transactional(transactionManager = "transactionManager")
     public void placeOrder(User user, Set<OrderItem> orderItems) {
@@ -106,11 +154,11 @@ public class OrderService {
         order.setUser(user);
         order.setDatePlaced(LocalDateTime.now());
         order.setOrderStatus("Processing");
-        order.setOrderItems(orderItems);
+        order.setOrderItems(mergeLines(orderItems));
 
-        for (OrderItem item : orderItems) {
+        Map<Long, Integer> stockToDeduct = new LinkedHashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
             item.setOrder(order);
-            // 扣减库存
             Product product = item.getProduct();
             if (product == null) {
                 throw new RuntimeException("Product not found in order item");
@@ -131,13 +179,13 @@ public class OrderService {
                 item.setWholesalePrice(product.getWholesalePrice());
             }
             
-            if (product.getQuantity() == null || product.getQuantity() < item.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
-            }
-            product.setQuantity(product.getQuantity() - item.getQuantity());
-            productDao.update(product);
+            checkStock(product, item.getQuantity());
+            stockToDeduct.merge(product.getProductId(), item.getQuantity(), Integer::sum);
         }
 
+        // 扣减库存（条件更新，防止并发超卖）
+        deductStock(stockToDeduct);
+
         orderDao.save(order);
     }
 
@@ -145,12 +193,12 @@ public class OrderService {
      * 获取指定用户的所有订单
      */
     @Transactional(transactionManager = "transactionManager")
-    public List<Order> getOrdersByUser(Long userId) {
+    public List<OrderResponseDTO> getOrdersByUser(Long userId) {
         User user = userDao.findById(userId);
         if (user == null) {
             throw new RuntimeException("User not found");
         }
-        return orderDao.findByUser(user);
+        return getOrderSummaries(orderDao.findIdsByUserId(userId));
     }
 
     /**
@@ -162,11 +210,54 @@ public class OrderService {
     }
 
     /**
-     * 管理员查看所有订单
+     * 管理员订单列表的一页（按下单时间倒序）：先按游标取 ID（多取一条判断是否还有下一页），再只为这一页投影表头与明细
      */
-    @Transactional(transactionManager = "transactionManager")
-    public List<Order> getAllOrders() {
-        return orderDao.findAllOrders();
+    @Transactional(transactionManager = "transactionManager", readOnly = true)
+    public OrderPageDTO getOrderPage(Long after, int pageSize, String status, LocalDateTime from, LocalDateTime to) {
+        List<Long> ids = getOrderPageIds(after, pageSize + 1, status, from, to);
+        boolean hasMore = ids.size() > pageSize;
+        if (hasMore) {
+            ids = ids.subList(0, pageSize);
+        }
+
+        OrderPageDTO page = new OrderPageDTO();
+        page.setItems(getOrderSummaries(ids));
+        page.setNextCursor(hasMore ? ids.get(ids.size() - 1) : null);
+        return page;
+    }
+
+    /**
+     * 管理员订单列表：取一页订单 ID（limit 条，调用方可多取一条判断是否还有下一页）
+     */
+    @Transactional(transactionManager = "transactionManager", readOnly = true)
+    public List<Long> getOrderPageIds(Long after, int limit, String status, LocalDateTime from, LocalDateTime to) {
+        String normalizedStatus = null;
+        if (status != null && !status.isEmpty()) {
+            for (String known : ORDER_STATUSES) {
+                if (known.equalsIgnoreCase(status)) {
+                    normalizedStatus = known;
+                }
+            }
+            if (normalizedStatus == null) {
+                throw new RuntimeException("Invalid order status: " + status);
+            }
+        }
+        return orderDao.findPageIds(after, limit, normalizedStatus, from, to);
+    }
+
+    /**
+     * 按 ID 批量组装订单列表项（表头、明细各一条投影查询），保持传入顺序
+     */
+    @Transactional(transactionManager = "transactionManager", readOnly = true)
+    public List<OrderResponseDTO> getOrderSummaries(List<Long> orderIds) {
+        List<OrderResponseDTO> orders = orderDao.findSummariesByIds(orderIds);
+        Map<Long, List<OrderItemDTO>> items = orderItemDao.findItemDTOsByOrderIds(orderIds);
+        for (OrderResponseDTO order : orders) {
+            List<OrderItemDTO> lines = items.getOrDefault(order.getOrderId(), new ArrayList<>());
+            order.setItems(lines);
+            order.setTotalPrice(lines.stream().mapToDouble(i -> i.getPrice() * i.getQuantity()).sum());
+        }
+        return orders;
     }
 
     /**
@@ -184,15 +275,17 @@ public class OrderService {
             if ("Completed".equalsIgnoreCase(current)) {
                 throw new RuntimeException("Completed order cannot be canceled");
             }
-            if (!"Canceled".equalsIgnoreCase(current)) {
-                // 从 Processing 取消时回补库存
-                for (OrderItem item : order.getOrderItems()) {
-                    Product product = item.getProduct();
-                    product.setQuantity(product.getQuantity() + item.getQuantity());
-                    productDao.update(product);
-                }
+            if ("Canceled".equalsIgnoreCase(current)) {
+                return;
             }
-            orderDao.updateOrderStatus(orderId, "Canceled");
+            changeStatus(orderId, current, "Canceled");
+            // 从 Processing 取消时回补库存
+            Map<Long, Integer> stockToRestore = new LinkedHashMap<>();
+            for (OrderItem item : order.getOrderItems()) {
+                stockToRestore.merge(item.getProduct().getProductId(), item.getQuantity(), Integer::sum);
+            }
+            productDao.incrementStock(stockToRestore);
+            catalogSnapshot.markStale(stockToRestore.keySet());
             return;
         }
 
@@ -200,11 +293,74 @@ public class OrderService {
             if ("Canceled".equalsIgnoreCase(current)) {
                 throw new RuntimeException("Canceled order cannot be completed");
             }
-            orderDao.updateOrderStatus(orderId, "Completed");
+            if ("Completed".equalsIgnoreCase(current)) {
+                return;
+            }
+            changeStatus(orderId, current, "Completed");
+            statsService.applyOrderCompletion(order, 1);
             return;
         }
 
-        // 其他状态直接更新
-        orderDao.updateOrderStatus(orderId, status);
+        // 其他状态直接更新；从 Completed 移出时扣回统计
+        changeStatus(orderId, current, status);
+        if ("Completed".equalsIgnoreCase(current)) {
+            statsService.applyOrderCompletion(order, -1);
+        }
+    }
+
+    /**
+     * 基于读取到的当前状态做条件更新，并发下只有一个请求能完成这次状态流转
+     */
+    private void changeStatus(Long orderId, String current, String status) {
+        if (orderDao.updateOrderStatus(orderId, current, status) == 0) {
+            throw new RuntimeException("Order status was changed concurrently, please retry");
+        }
+    }
+
+    /**
+     * 下单前的快速校验（基于已加载的商品，真正的并发保护在 deductStock 的条件更新中）
+     */
+    private void checkStock(Product product, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new RuntimeException("Invalid quantity for product: " + product.getName());
+        }
+        if (product.getQuantity() == null || product.getQuantity() < quantity) {
+            throw new RuntimeException("Insufficient stock for product: " + product.getName());
+        }
+    }
+
+    /**
+     * 按商品合并订单行（数量相加，保留第一行的价格），OrderItem 按对象判等，重复商品不会被 Set 去重
+     */
+    private Set<OrderItem> mergeLines(Set<OrderItem> orderItems) {
+        Map<Long, OrderItem> byProduct = new LinkedHashMap<>();
+        Set<OrderItem> merged = new LinkedHashSet<>();
+        for (OrderItem item : orderItems) {
+            Product product = item.getProduct();
+            if (product == null) {
+                throw new RuntimeException("Product not found in order item");
+            }
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new RuntimeException("Invalid quantity for product: " + product.getName());
+            }
+            OrderItem first = byProduct.putIfAbsent(product.getProductId(), item);
+            if (first == null) {
+                merged.add(item);
+            } else {
+                first.setQuantity(first.getQuantity() + item.getQuantity());
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 一条语句扣减所有商品库存；任何一行未更新说明库存已被并发消耗，整单回滚
+     */
+    private void deductStock(Map<Long, Integer> stockToDeduct) {
+        int updated = productDao.decrementStock(stockToDeduct);
+        if (updated != stockToDeduct.size()) {
+            throw new RuntimeException("Insufficient stock for one or more products");
+        }
+        catalogSnapshot.markStale(stockToDeduct.keySet());
     }
-}
\ No newline at end of file
+}
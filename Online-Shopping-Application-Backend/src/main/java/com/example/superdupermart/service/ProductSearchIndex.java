@@ -0,0 +1,207 @@
+package com.example.superdupermart.service;
+
+import com.example.superdupermart.entity.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * 商品内存倒排索引（name + description）
+ * 词项：小写分词；容错：每个词再拆成字符三元组（trigram），拼写错误时按三元组重合度匹配
+ * 启动时由 ProductService 全量构建，商品增删改时增量更新
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final float EXACT_BOOST = 2.0f;
+    // 模糊匹配时，查询词至少要有这么多比例的 trigram 命中
+    private static final float MIN_GRAM_OVERLAP = 0.4f;
+
+    // 词项 -> (productId -> 权重)
+    private final Map<String, Map<Long, Float>> termPostings = new HashMap<>();
+    // trigram -> (productId -> 权重)
+    private final Map<String, Map<Long, Float>> gramPostings = new HashMap<>();
+    // productId -> 该商品写入过的词项 / trigram（用于增量删除）
+    private final Map<Long, Set<String>> docTerms = new HashMap<>();
+    private final Map<Long, Set<String>> docGrams = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 全量重建索引
+     */
+    public void rebuild(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            termPostings.clear();
+            gramPostings.clear();
+            docTerms.clear();
+            docGrams.clear();
+            for (Product product : products) {
+                addInternal(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 新增或更新单个商品
+     */
+    public void index(Product product) {
+        if (product == null || product.getProductId() == null) return;
+        lock.writeLock().lock();
+        try {
+            removeInternal(product.getProductId());
+            addInternal(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 从索引中移除商品
+     */
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按相关度检索，返回排序后的 productId（最多 limit 个）
+     */
+    public List<Long> search(String queryText, int limit) {
+        return search(queryText, limit, id -> true);
+    }
+
+    /**
+     * 按相关度检索，只保留 accept 为 true 的商品；过滤在截断之前进行，排在前面的商品被过滤掉时继续往后取，直到凑满 limit 个
+     */
+    public List<Long> search(String queryText, int limit, LongPredicate accept) {
+        List<String> queryTokens = tokenize(queryText);
+        if (queryTokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Float> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (String token : new LinkedHashSet<>(queryTokens)) {
+                Map<Long, Float> exact = termPostings.getOrDefault(token, Collections.emptyMap());
+                for (Map.Entry<Long, Float> e : exact.entrySet()) {
+                    scores.merge(e.getKey(), e.getValue() * EXACT_BOOST, Float::sum);
+                }
+
+                // 没有精确命中的商品按 trigram 重合度打分
+                Set<String> grams = trigrams(token);
+                Map<Long, Integer> hitCount = new HashMap<>();
+                Map<Long, Float> hitWeight = new HashMap<>();
+                for (String gram : grams) {
+                    Map<Long, Float> postings = gramPostings.get(gram);
+                    if (postings == null) continue;
+                    for (Map.Entry<Long, Float> e : postings.entrySet()) {
+                        if (exact.containsKey(e.getKey())) continue;
+                        hitCount.merge(e.getKey(), 1, Integer::sum);
+                        hitWeight.merge(e.getKey(), e.getValue(), Float::sum);
+                    }
+                }
+                for (Map.Entry<Long, Integer> e : hitCount.entrySet()) {
+                    float overlap = (float) e.getValue() / grams.size();
+                    if (overlap >= MIN_GRAM_OVERLAP) {
+                        scores.merge(e.getKey(), hitWeight.get(e.getKey()) / grams.size(), Float::sum);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, Float>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort((a, b) -> {
+            int c = Float.compare(b.getValue(), a.getValue());
+            return c != 0 ? c : a.getKey().compareTo(b.getKey());
+        });
+        List<Long> ids = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && ids.size() < limit; i++) {
+            Long id = ranked.get(i).getKey();
+            if (accept.test(id)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    // ======== 辅助方法（调用方需持有写锁） ========
+
+    private void addInternal(Product product) {
+        Long id = product.getProductId();
+        Map<String, Float> weights = new HashMap<>();
+        for (String token : tokenize(product.getName())) {
+            weights.merge(token, NAME_WEIGHT, Float::sum);
+        }
+        for (String token : tokenize(product.getDescription())) {
+            weights.merge(token, DESCRIPTION_WEIGHT, Float::sum);
+        }
+
+        Map<String, Float> gramWeights = new HashMap<>();
+        for (Map.Entry<String, Float> e : weights.entrySet()) {
+            termPostings.computeIfAbsent(e.getKey(), k -> new HashMap<>()).put(id, e.getValue());
+            for (String gram : trigrams(e.getKey())) {
+                gramWeights.merge(gram, e.getValue(), Math::max);
+            }
+        }
+        for (Map.Entry<String, Float> e : gramWeights.entrySet()) {
+            gramPostings.computeIfAbsent(e.getKey(), k -> new HashMap<>()).put(id, e.getValue());
+        }
+        docTerms.put(id, weights.keySet());
+        docGrams.put(id, gramWeights.keySet());
+    }
+
+    private void removeInternal(Long productId) {
+        unlink(termPostings, docTerms.remove(productId), productId);
+        unlink(gramPostings, docGrams.remove(productId), productId);
+    }
+
+    private static void unlink(Map<String, Map<Long, Float>> postings, Set<String> keys, Long productId) {
+        if (keys == null) return;
+        for (String key : keys) {
+            Map<Long, Float> docs = postings.get(key);
+            if (docs == null) continue;
+            docs.remove(productId);
+            if (docs.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String raw : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!raw.isEmpty()) {
+                tokens.add(raw);
+            }
+        }
+        return tokens;
+    }
+
+    static Set<String> trigrams(String token) {
+        String padded = "$" + token + "$";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+}
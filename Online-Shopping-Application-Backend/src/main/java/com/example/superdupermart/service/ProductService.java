@@ -1,13 +1,28 @@
 package com.example.superdupermart.service;
 
 import com.example.superdupermart.dao.ProductDao;
+import com.example.superdupermart.dto.ProductRecord;
 import com.example.superdupermart.entity.Product;
+import com.example.superdupermart.notification.ProductNotification;
+import com.example.superdupermart.notification.WatchNotificationDispatcher;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+/**
+ * 商品读写：列表、详情、批量读取与搜索只读内存中的目录快照和搜索索引，不开启事务（不占用数据库连接）；
+ * 其余方法在事务中访问数据库
+ */
 @Service
 @Transactional(transactionManager = "transactionManager")
 public class ProductService {
@@ -15,6 +30,23 @@ public class ProductService {
     @Autowired
     private ProductDao productDao;
 
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
+    @Autowired
+    private WatchNotificationDispatcher notificationDispatcher;
+
+    /**
+     * 应用启动后全量构建搜索索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        searchIndex.rebuild(productDao.findAll());
+    }
+
     /**
      * 获取所有商品
      */
@@ -22,6 +54,48 @@ public class ProductService {
         return productDao.findAll();
     }
 
+    /**
+     * 当前目录快照（版本号用于 ETag）
+     */
+    @Transactional(transactionManager = "transactionManager", propagation = Propagation.NOT_SUPPORTED)
+    public CatalogSnapshot.Snapshot getCatalog() {
+        return catalogSnapshot.current();
+    }
+
+    /**
+     * 读取商品详情所用的目录快照（快照中暂时没有该商品时等待刷新）
+     */
+    @Transactional(transactionManager = "transactionManager", propagation = Propagation.NOT_SUPPORTED)
+    public CatalogSnapshot.Snapshot getCatalogFor(Long productId) {
+        return catalogSnapshot.lookup(productId);
+    }
+
+    /**
+     * 游标分页获取商品（读目录快照，多取一条用于判断是否还有下一页）
+     */
+    @Transactional(transactionManager = "transactionManager", propagation = Propagation.NOT_SUPPORTED)
+    public List<ProductRecord> getProductPage(CatalogSnapshot.Snapshot catalog, Long after, int limit,
+                                              String sort, boolean inStockOnly) {
+        return catalog.page(after, limit + 1, sort, inStockOnly);
+    }
+
+    /**
+     * 按一组 ID 读取商品（读目录快照，按请求顺序返回，重复与不存在的 ID 跳过）
+     */
+    @Transactional(transactionManager = "transactionManager", propagation = Propagation.NOT_SUPPORTED)
+    public List<ProductRecord> getProductsByIds(List<Long> ids) {
+        CatalogSnapshot.Snapshot snapshot = catalogSnapshot.current();
+        Set<Long> seen = new HashSet<>();
+        List<ProductRecord> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductRecord p = snapshot.get(id);
+            if (p != null && seen.add(id)) {
+                result.add(p);
+            }
+        }
+        return result;
+    }
+
     /**
      * 根据 ID 查找商品
      */
@@ -29,11 +103,31 @@ public class ProductService {
         return productDao.findById(id);
     }
 
+    /**
+     * 关键词检索商品（倒排索引命中后按相关度顺序从目录快照取记录）
+     */
+    @Transactional(transactionManager = "transactionManager", propagation = Propagation.NOT_SUPPORTED)
+    public List<ProductRecord> searchProducts(String keyword, int limit, boolean inStockOnly) {
+        CatalogSnapshot.Snapshot snapshot = catalogSnapshot.current();
+        // 库存过滤在索引按相关度遍历时进行，缺货商品不占 limit 名额
+        List<Long> ids = searchIndex.search(keyword, limit, id -> {
+            ProductRecord p = snapshot.get(id);
+            return p != null && (!inStockOnly || p.getQuantity() > 0);
+        });
+        List<ProductRecord> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            result.add(snapshot.get(id));
+        }
+        return result;
+    }
+
     /**
      * 新增商品
      */
     public void saveProduct(Product product) {
         productDao.save(product);
+        IndexSupport.afterCommit(() -> searchIndex.index(product));
+        catalogSnapshot.markStaleAndWait(Collections.singleton(product.getProductId()));
     }
 
     /**
@@ -42,12 +136,38 @@ public class ProductService {
     public void updateProduct(Long id, Product updatedProduct) {
         Product existing = productDao.findById(id);
         if (existing != null) {
+            Integer oldQuantity = existing.getQuantity();
+            BigDecimal oldPrice = existing.getRetailPrice();
             existing.setName(updatedProduct.getName());
             existing.setDescription(updatedProduct.getDescription());
             existing.setQuantity(updatedProduct.getQuantity());
             existing.setRetailPrice(updatedProduct.getRetailPrice());
             existing.setWholesalePrice(updatedProduct.getWholesalePrice());
             productDao.update(existing);
+            IndexSupport.afterCommit(() -> searchIndex.index(existing));
+            notifyWatchers(existing, oldQuantity, oldPrice);
+            // 等待快照发布的回调最后注册，不耽误前面的回调
+            catalogSnapshot.markStaleAndWait(Collections.singleton(id));
+        }
+    }
+
+    /**
+     * 到货（库存从 0 变为正数）、降价（零售价降低）时，事务提交后通知收藏了该商品的用户
+     */
+    private void notifyWatchers(Product product, Integer oldQuantity, BigDecimal oldPrice) {
+        List<ProductNotification> events = new ArrayList<>(2);
+        Integer quantity = product.getQuantity();
+        if ((oldQuantity == null || oldQuantity <= 0) && quantity != null && quantity > 0) {
+            events.add(new ProductNotification(ProductNotification.Type.BACK_IN_STOCK,
+                    product.getProductId(), product.getName(), oldPrice, product.getRetailPrice()));
+        }
+        BigDecimal price = product.getRetailPrice();
+        if (oldPrice != null && price != null && price.compareTo(oldPrice) < 0) {
+            events.add(new ProductNotification(ProductNotification.Type.PRICE_DROP,
+                    product.getProductId(), product.getName(), oldPrice, price));
+        }
+        if (!events.isEmpty()) {
+            IndexSupport.afterCommit(() -> events.forEach(notificationDispatcher::publish));
         }
     }
 
@@ -56,5 +176,7 @@ public class ProductService {
      */
     public void deleteProduct(Long id) {
         productDao.deleteById(id);
+        IndexSupport.afterCommit(() -> searchIndex.remove(id));
+        catalogSnapshot.markStaleAndWait(Collections.singleton(id));
     }
 }
\ No newline at end of file
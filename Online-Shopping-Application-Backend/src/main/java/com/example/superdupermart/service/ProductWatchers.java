@@ -0,0 +1,137 @@
+package com.example.superdupermart.service;
+
+import com.example.superdupermart.dao.WatchlistDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 商品 -> 收藏该商品的用户（有序 long[]），用于到货/降价通知的扇出，不按商品扫描 watchlists 表
+ * - 第一次使用时整表读取一次（由通知分发线程触发），之后由 WatchlistService 的添加/删除在事务提交后更新（copy-on-write）
+ * - 加载期间提交的修改先缓存，加载完成后按提交顺序重放到新索引再发布；
+ *   同一 (商品, 用户) 的最终状态只取决于最后一次修改，读取已经包含的修改重放一次也不会出错
+ */
+@Service
+public class ProductWatchers {
+
+    private static final long[] NONE = new long[0];
+
+    @Autowired
+    private WatchlistDao watchlistDao;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    // 尚未加载时为 null；加载开始前提交的修改由加载过程读到，不需要记录
+    private volatile Map<Long, long[]> watchers;
+    // 加载期间提交的修改（不在加载时为 null），由 watchers 的发布过程重放，受 pendingLock 保护
+    private List<Consumer<Map<Long, long[]>>> pending;
+    private final Object pendingLock = new Object();
+    private final Object loadLock = new Object();
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = IndexSupport.readOnlyRequiresNew(transactionManager);
+    }
+
+    /**
+     * 收藏了该商品的用户 ID（升序，不可修改）
+     */
+    public long[] get(Long productId) {
+        long[] users = loaded().get(productId);
+        return users != null ? users : NONE;
+    }
+
+    /**
+     * 事务提交后登记一次收藏
+     */
+    public void added(Long userId, Long productId) {
+        IndexSupport.afterCommit(() -> apply(map ->
+                map.compute(productId, (id, users) -> IndexSupport.with(users == null ? NONE : users, userId))));
+    }
+
+    /**
+     * 事务提交后登记一次取消收藏
+     */
+    public void removed(Long userId, Long productId) {
+        IndexSupport.afterCommit(() -> apply(map ->
+                map.computeIfPresent(productId, (id, users) -> {
+                    long[] next = IndexSupport.without(users, userId);
+                    return next.length == 0 ? null : next;
+                })));
+    }
+
+    private void apply(Consumer<Map<Long, long[]>> change) {
+        Map<Long, long[]> current = watchers;
+        if (current == null) {
+            synchronized (pendingLock) {
+                current = watchers;
+                if (current == null) {
+                    if (pending != null) {
+                        pending.add(change);
+                    }
+                    return;
+                }
+            }
+        }
+        change.accept(current);
+    }
+
+    private Map<Long, long[]> loaded() {
+        Map<Long, long[]> current = watchers;
+        if (current != null) {
+            return current;
+        }
+        synchronized (loadLock) {
+            if (watchers != null) {
+                return watchers;
+            }
+            synchronized (pendingLock) {
+                pending = new ArrayList<>();
+            }
+            Map<Long, long[]> built;
+            try {
+                built = load();
+            } catch (RuntimeException e) {
+                synchronized (pendingLock) {
+                    pending = null;
+                }
+                throw e;
+            }
+            synchronized (pendingLock) {
+                pending.forEach(change -> change.accept(built));
+                pending = null;
+                watchers = built;
+            }
+            return built;
+        }
+    }
+
+    private Map<Long, long[]> load() {
+        // 按 (productId, userId) 排序，每个商品的用户是连续且有序的一段
+        List<Object[]> pairs = readOnlyTransaction.execute(status -> watchlistDao.findAllProductUserPairs());
+        Map<Long, long[]> result = new ConcurrentHashMap<>();
+        int start = 0;
+        for (int i = 1; i <= pairs.size(); i++) {
+            if (i == pairs.size() || !pairs.get(i)[0].equals(pairs.get(start)[0])) {
+                long[] users = new long[i - start];
+                for (int j = start; j < i; j++) {
+                    users[j - start] = (Long) pairs.get(j)[1];
+                }
+                result.put((Long) pairs.get(start)[0], users);
+                start = i;
+            }
+        }
+        return result;
+    }
+}
@@ -1,17 +1,25 @@
 package com.example.superdupermart.service;
 
+import com.example.superdupermart.dao.OrderCounterDao;
 import com.example.superdupermart.dao.OrderDao;
 import com.example.superdupermart.dao.OrderItemDao;
 import com.example.superdupermart.dao.ProductDao;
+import com.example.superdupermart.dao.ProductSalesDao;
 import com.example.superdupermart.dao.UserDao;
+import com.example.superdupermart.dto.ProductSalesSummaryDTO;
 import com.example.superdupermart.entity.Order;
+import com.example.superdupermart.entity.OrderCounter;
 import com.example.superdupermart.entity.OrderItem;
 import com.example.superdupermart.entity.Product;
+import com.example.superdupermart.entity.ProductSales;
 import com.example.superdupermart.entity.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.*;
 
 @Service
@@ -30,17 +38,30 @@ public class StatsService {
     @Autowired
     private UserDao userDao;
 
+    @Autowired
+    private ProductSalesDao productSalesDao;
+
+    @Autowired
+    private OrderCounterDao orderCounterDao;
+
+    /**
+     * 应用首次启动（计数器表为空）时从历史订单初始化汇总数据
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initSalesAggregates() {
+        if (orderCounterDao.getValue(OrderCounter.COMPLETED_ORDERS) == null) {
+            rebuildSalesAggregates();
+        }
+    }
+
     /**
      * 获取销量最高的商品
      * 对应: /admin/stats/topSellingProduct
      */
     public Product getTopSellingProduct() {
         // 基于已完成订单统计（更符合业务口径）
-        Map<Product, Long> counter = aggregateProductCountFromCompletedOrders();
-        return counter.entrySet().stream()
-                .max(java.util.Map.Entry.comparingByValue())
-                .map(java.util.Map.Entry::getKey)
-                .orElse(null);
+        List<ProductSales> top = productSalesDao.findTopByUnitsSold(1);
+        return top.isEmpty() ? null : top.get(0).getProduct();
     }
 
     /**
@@ -48,20 +69,27 @@ public class StatsService {
      * 对应: /admin/stats/allProductSales
      */
     public Map<String, Long> getProductSales() {
-        Map<Product, Long> counter = aggregateProductCountFromCompletedOrders();
         Map<String, Long> salesMap = new HashMap<>();
-        for (Map.Entry<Product, Long> e : counter.entrySet()) {
-            salesMap.put(e.getKey().getName(), e.getValue());
+        for (ProductSales ps : productSalesDao.findAllWithProduct()) {
+            salesMap.put(ps.getProduct().getName(), ps.getUnitsSold());
         }
         return salesMap;
     }
 
     /**
-     * 计算平台订单总数
+     * 计算平台订单总数（直接 COUNT 订单表：不在下单事务中维护计数行，避免所有下单争用同一行锁）
      * 对应: /admin/stats/orderCount
      */
     public int getTotalOrderCount() {
-        return orderDao.findAllOrders().size();
+        return (int) orderDao.countByStatus(null);
+    }
+
+    /**
+     * 已完成订单售出的商品总件数
+     * 对应: /admin/stats/unitsSold
+     */
+    public long getTotalUnitsSold() {
+        return productSalesDao.sumUnitsSold();
     }
 
     /**
@@ -69,74 +97,81 @@ public class StatsService {
      * 对应: /user/stats/recentPopularProducts
      */
     public List<Map.Entry<String, Long>> getPopularProducts() {
-        Map<String, Long> salesMap = getProductSales();
-        List<Map.Entry<String, Long>> sortedList = new ArrayList<>(salesMap.entrySet());
-        sortedList.sort((a, b) -> b.getValue().compareTo(a.getValue()));
-        return sortedList.subList(0, Math.min(sortedList.size(), 5)); // 取前5
+        List<Map.Entry<String, Long>> list = new ArrayList<>();
+        for (ProductSales ps : productSalesDao.findTopByUnitsSold(5)) { // 取前5
+            list.add(new AbstractMap.SimpleEntry<>(ps.getProduct().getName(), ps.getUnitsSold()));
+        }
+        return list;
     }
 
     // Admin：最盈利 TopN（仅 Completed）
     public List<Map.Entry<String, Double>> getMostProfitableProducts(int topN) {
-        List<Order> orders = orderDao.findAllOrders();
-        Map<String, Double> profitMap = new HashMap<>();
-        for (Order o : orders) {
-            if (!"Completed".equalsIgnoreCase(o.getOrderStatus())) continue;
-            for (OrderItem oi : o.getOrderItems()) {
-                double retail = oi.getProduct().getRetailPrice() == null ? 0.0 : oi.getProduct().getRetailPrice().doubleValue();
-                double wholesale = oi.getProduct().getWholesalePrice() == null ? 0.0 : oi.getProduct().getWholesalePrice().doubleValue();
-                double profit = (retail - wholesale) * oi.getQuantity();
-                profitMap.merge(oi.getProduct().getName(), profit, Double::sum);
-            }
+        List<Map.Entry<String, Double>> list = new ArrayList<>();
+        for (ProductSales ps : productSalesDao.findTopByProfit(topN)) {
+            list.add(new AbstractMap.SimpleEntry<>(ps.getProduct().getName(), ps.getProfit().doubleValue()));
         }
-        List<Map.Entry<String, Double>> list = new ArrayList<>(profitMap.entrySet());
-        list.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
-        return list.subList(0, Math.min(list.size(), topN));
+        return list;
     }
 
-    // ======== 新增：用户维度统计 ========
-    public List<Map.Entry<String, Long>> getUserMostFrequentProducts(Long userId, int topN) {
-        User user = userDao.findById(userId);
-        if (user == null) throw new RuntimeException("User not found");
-        List<Order> orders = orderDao.findByUser(user);
-        Map<String, Long> counter = new HashMap<>();
-        for (Order o : orders) {
-            if ("Canceled".equalsIgnoreCase(o.getOrderStatus())) continue; // 排除已取消
-            for (OrderItem oi : o.getOrderItems()) {
-                counter.merge(oi.getProduct().getName(), (long) oi.getQuantity(), Long::sum);
-            }
-        }
-        List<Map.Entry<String, Long>> list = new ArrayList<>(counter.entrySet());
-        list.sort((a, b) -> b.getValue().compareTo(a.getValue()));
-        return list.subList(0, Math.min(list.size(), topN));
+    // Admin：销量 TopN 汇总行（含销售额）
+    public List<ProductSales> getTopSellingSales(int topN) {
+        return productSalesDao.findTopByUnitsSold(topN);
     }
 
-    public List<Map.Entry<String, java.time.LocalDateTime>> getUserMostRecentProducts(Long userId, int topN) {
-        User user = userDao.findById(userId);
-        if (user == null) throw new RuntimeException("User not found");
-        List<Order> orders = orderDao.findByUser(user);
-        Map<String, java.time.LocalDateTime> latest = new HashMap<>();
-        for (Order o : orders) {
-            if ("Canceled".equalsIgnoreCase(o.getOrderStatus())) continue;
-            for (OrderItem oi : o.getOrderItems()) {
-                String name = oi.getProduct().getName();
-                latest.merge(name, o.getDatePlaced(), (oldV, newV) -> newV.isAfter(oldV) ? newV : oldV);
-            }
-        }
-        List<Map.Entry<String, java.time.LocalDateTime>> list = new ArrayList<>(latest.entrySet());
-        list.sort((a, b) -> b.getValue().compareTo(a.getValue()));
-        return list.subList(0, Math.min(list.size(), topN));
+    // Admin：利润 TopN 汇总行（含销量、销售额）
+    public List<ProductSales> getMostProfitableSales(int topN) {
+        return productSalesDao.findTopByProfit(topN);
     }
 
-    // ======== 辅助：Completed 订单聚合销量 ========
-    private Map<Product, Long> aggregateProductCountFromCompletedOrders() {
-        List<Order> orders = orderDao.findAllOrders();
-        Map<Product, Long> counter = new HashMap<>();
-        for (Order o : orders) {
-            if (!"Completed".equalsIgnoreCase(o.getOrderStatus())) continue;
-            for (OrderItem oi : o.getOrderItems()) {
-                counter.merge(oi.getProduct(), (long) oi.getQuantity(), Long::sum);
-            }
+    // ======== 汇总数据维护 ========
+
+    /**
+     * 订单进入（sign = 1）或移出（sign = -1）Completed 状态时累加商品汇总
+     * 与订单状态更新在同一事务中执行
+     */
+    public void applyOrderCompletion(Order order, int sign) {
+        Map<Long, ProductSales> deltas = new LinkedHashMap<>();
+        for (OrderItem oi : order.getOrderItems()) {
+            BigDecimal qty = BigDecimal.valueOf(oi.getQuantity());
+            BigDecimal revenue = oi.getPurchasedPrice().multiply(qty);
+            BigDecimal cost = oi.getWholesalePrice().multiply(qty);
+
+            ProductSales d = deltas.computeIfAbsent(oi.getProduct().getProductId(), id -> {
+                ProductSales ps = new ProductSales();
+                ps.setProductId(id);
+                return ps;
+            });
+            d.setUnitsSold(d.getUnitsSold() + (long) sign * oi.getQuantity());
+            d.setRevenue(d.getRevenue().add(revenue.multiply(BigDecimal.valueOf(sign))));
+            d.setCost(d.getCost().add(cost.multiply(BigDecimal.valueOf(sign))));
+            d.setProfit(d.getRevenue().subtract(d.getCost()));
         }
-        return counter;
+        productSalesDao.applyDeltas(deltas.values());
+        orderCounterDao.increment(OrderCounter.COMPLETED_ORDERS, sign);
+    }
+
+    /**
+     * 从订单明细全量重建商品汇总与订单计数器
+     * 对应: /admin/stats/rebuild
+     */
+    public void rebuildSalesAggregates() {
+        productSalesDao.rebuildFromCompletedOrders();
+        orderCounterDao.setValue(OrderCounter.COMPLETED_ORDERS, orderDao.countByStatus("Completed"));
+    }
+
+    // ======== 新增：用户维度统计 ========
+    public List<ProductSalesSummaryDTO> getUserMostFrequentProducts(Long userId, int topN) {
+        requireUser(userId);
+        return orderItemDao.aggregateByUser(userId, "Canceled", "quantity", topN); // 排除已取消
+    }
+
+    public List<ProductSalesSummaryDTO> getUserMostRecentProducts(Long userId, int topN) {
+        requireUser(userId);
+        return orderItemDao.aggregateByUser(userId, "Canceled", "recent", topN);
+    }
+
+    private void requireUser(Long userId) {
+        User user = userDao.findById(userId);
+        if (user == null) throw new RuntimeException("User not found");
     }
-}
\ No newline at end of file
+}
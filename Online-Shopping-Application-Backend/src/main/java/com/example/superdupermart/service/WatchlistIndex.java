@@ -0,0 +1,133 @@
+package com.example.superdupermart.service;
+
+import com.example.superdupermart.dao.WatchlistDao;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户收藏的商品集合（按用户缓存的有序 long[]），用于在商品列表、详情上标记“已收藏”，每个商品一次二分查找、不查库
+ * - 首次访问某个用户时从 watchlists 读取，之后由 WatchlistService 的添加/删除在事务提交后原地更新（copy-on-write）
+ * - 缓存用户数有上限，超出后淘汰最近不常访问的用户（Caffeine 按容量淘汰），被淘汰的用户下次访问时重新加载
+ * - 每个集合带一个全局递增的 stamp，集合变化后 stamp 随之变化，可放进 ETag
+ */
+@Service
+public class WatchlistIndex {
+
+    private static final int MAX_USERS = 100_000;
+
+    @Autowired
+    private WatchlistDao watchlistDao;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private final Cache<Long, Membership> memberships = Caffeine.newBuilder().maximumSize(MAX_USERS).build();
+
+    // stamps：集合版本，以启动时间为起点，重启后不会与之前的 ETag 重复；changes：已应用的修改次数，用于检测加载期间的并发修改
+    private final AtomicLong stamps = new AtomicLong(System.currentTimeMillis());
+    private final AtomicLong changes = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = IndexSupport.readOnlyRequiresNew(transactionManager);
+    }
+
+    /**
+     * 用户收藏的商品集合（不存在时从数据库加载）；userId 为空时返回 null
+     */
+    public Membership get(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        Membership cached = memberships.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = changes.get();
+        List<Long> ids = readOnlyTransaction.execute(status -> watchlistDao.findProductIdsByUserId(userId));
+        long[] sorted = ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        Membership loaded = new Membership(sorted, stamps.incrementAndGet());
+        Membership existing = memberships.asMap().putIfAbsent(userId, loaded);
+        if (existing != null) {
+            return existing;
+        }
+        // 读取期间有修改提交：那次修改可能没有作用到刚放入的集合，丢弃，下次重新加载
+        if (changes.get() != seen) {
+            memberships.asMap().remove(userId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * 内存中已有的收藏集合，不加载；不在内存中或 userId 为空时返回 null
+     */
+    public Membership getIfLoaded(Long userId) {
+        return userId == null ? null : memberships.getIfPresent(userId);
+    }
+
+    /**
+     * 事务提交后把商品加入用户的集合
+     */
+    public void added(Long userId, Long productId) {
+        IndexSupport.afterCommit(() -> {
+            changes.incrementAndGet();
+            memberships.asMap().computeIfPresent(userId, (id, m) -> m.with(productId, stamps.incrementAndGet()));
+        });
+    }
+
+    /**
+     * 事务提交后把商品从用户的集合移除
+     */
+    public void removed(Long userId, Long productId) {
+        IndexSupport.afterCommit(() -> {
+            changes.incrementAndGet();
+            memberships.asMap().computeIfPresent(userId, (id, m) -> m.without(productId, stamps.incrementAndGet()));
+        });
+    }
+
+    /**
+     * 不可变的收藏集合：升序 productId 数组 + stamp
+     */
+    public static final class Membership {
+        private final long[] productIds;
+        private final long stamp;
+
+        Membership(long[] productIds, long stamp) {
+            this.productIds = productIds;
+            this.stamp = stamp;
+        }
+
+        public boolean contains(Long productId) {
+            return productId != null && Arrays.binarySearch(productIds, productId) >= 0;
+        }
+
+        public boolean isEmpty() {
+            return productIds.length == 0;
+        }
+
+        public long getStamp() {
+            return stamp;
+        }
+
+        Membership with(long productId, long newStamp) {
+            long[] next = IndexSupport.with(productIds, productId);
+            return next == productIds ? this : new Membership(next, newStamp);
+        }
+
+        Membership without(long productId, long newStamp) {
+            long[] next = IndexSupport.without(productIds, productId);
+            return next == productIds ? this : new Membership(next, newStamp);
+        }
+    }
+}
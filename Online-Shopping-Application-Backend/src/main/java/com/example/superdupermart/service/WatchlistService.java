@@ -1,9 +1,8 @@
 package com.example.superdupermart.service;
 
+import com.example.superdupermart.dao.UserDao;
 import com.example.superdupermart.dao.WatchlistDao;
-import com.example.superdupermart.entity.Product;
-import com.example.superdupermart.entity.User;
-import com.example.superdupermart.entity.Watchlist;
+import com.example.superdupermart.dto.WatchlistDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,43 +16,55 @@ public class WatchlistService {
     @Autowired
     private WatchlistDao watchlistDao;
 
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
+    @Autowired
+    private WatchlistIndex watchlistIndex;
+
+    @Autowired
+    private ProductWatchers productWatchers;
+
     /**
      * 获取用户的所有收藏商品
      * 对应: /user/watchlist/view
      */
-    public List<Watchlist> getUserWatchlist(Long userId) {
-        return watchlistDao.findByUserId(userId);
+    public List<WatchlistDTO> getUserWatchlist(Long userId) {
+        return watchlistDao.findDTOsByUserId(userId);
     }
 
     /**
-     * 添加商品到收藏夹
+     * 添加商品到收藏夹：用户走二级缓存、商品查目录快照，写入是一条 INSERT IGNORE
      * 对应: /user/watchlist/add
      */
-    public String addToWatchlist(User user, Product product) {
-        Watchlist existing = watchlistDao.findByUserAndProduct(user.getUserId(), product.getProductId());
-        if (existing != null) {
+    public String addToWatchlist(Long userId, Long productId) {
+        if (userDao.findById(userId) == null) {
+            throw new RuntimeException("User not found");
+        }
+        if (catalogSnapshot.lookup(productId).get(productId) == null) {
+            throw new RuntimeException("Product not found");
+        }
+        if (watchlistDao.insertIfAbsent(userId, productId) == 0) {
             return "Product already in watchlist";
         }
-
-        Watchlist newWatch = new Watchlist();
-        newWatch.setUser(user);
-        newWatch.setProduct(product);
-        watchlistDao.save(newWatch);
-
+        watchlistIndex.added(userId, productId);
+        productWatchers.added(userId, productId);
         return "Product added to watchlist";
     }
 
     /**
-     * 从收藏夹移除商品
+     * 从收藏夹移除商品：一条 DELETE，按删除的行数判断是否收藏过
      * 对应: /user/watchlist/remove/{productId}
      */
     public String removeFromWatchlist(Long userId, Long productId) {
-        Watchlist existing = watchlistDao.findByUserAndProduct(userId, productId);
-        if (existing == null) {
+        if (watchlistDao.deleteByUserAndProduct(userId, productId) == 0) {
             return "Product not found in watchlist";
         }
-
-        watchlistDao.deleteByUserAndProduct(userId, productId);
+        watchlistIndex.removed(userId, productId);
+        productWatchers.removed(userId, productId);
         return "Product removed from watchlist";
     }
-}
\ No newline at end of file
+}
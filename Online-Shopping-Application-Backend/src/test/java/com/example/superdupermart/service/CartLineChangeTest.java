@@ -0,0 +1,115 @@
+package com.example.superdupermart.service;
+
+import com.example.superdupermart.dto.CartLineOperationDTO;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CartLineChangeTest {
+
+    @Test
+    void deltasAddUp() {
+        CartService.LineChange change = fold(delta(2), delta(3));
+        assertFalse(change.absolute);
+        assertEquals(5, change.quantity);
+    }
+
+    @Test
+    void deltaAfterSetStaysAbsolute() {
+        CartService.LineChange change = fold(set(3), delta(2));
+        assertTrue(change.absolute);
+        assertEquals(5, change.quantity);
+    }
+
+    @Test
+    void negativeDeltaAfterSetStopsAtZero() {
+        // 设为 1 再减 4：结果是删除，不是负数
+        CartService.LineChange change = fold(set(1), delta(-4));
+        assertTrue(change.absolute);
+        assertEquals(0, change.quantity);
+    }
+
+    @Test
+    void negativeDeltasReachingZeroCancelOut() {
+        CartService.LineChange change = fold(delta(2), delta(-1), delta(-1));
+        assertFalse(change.absolute);
+        assertEquals(0, change.quantity);
+    }
+
+    @Test
+    void negativeDeltasWithoutSetStayRelative() {
+        // 不知道当前数量，只能交给数据库减，不能在这里截断
+        CartService.LineChange change = fold(delta(-1), delta(-2));
+        assertFalse(change.absolute);
+        assertEquals(-3, change.quantity);
+    }
+
+    @Test
+    void removeAfterDeltaWins() {
+        CartService.LineChange change = fold(delta(2), remove());
+        assertTrue(change.absolute);
+        assertEquals(0, change.quantity);
+    }
+
+    @Test
+    void deltaAfterRemoveStartsFromZero() {
+        CartService.LineChange change = fold(remove(), delta(2));
+        assertTrue(change.absolute);
+        assertEquals(2, change.quantity);
+    }
+
+    @Test
+    void setAfterDeltaReplacesIt() {
+        CartService.LineChange change = fold(delta(5), set(1));
+        assertTrue(change.absolute);
+        assertEquals(1, change.quantity);
+    }
+
+    @Test
+    void rejectsOperationWithMoreThanOneKind() {
+        CartLineOperationDTO op = delta(1);
+        op.setRemove(true);
+        assertThrows(RuntimeException.class, () -> CartService.LineChange.apply(null, op));
+        assertThrows(RuntimeException.class, () -> CartService.LineChange.apply(null, op(1L)));
+    }
+
+    @Test
+    void rejectsNegativeSetQuantity() {
+        assertThrows(RuntimeException.class, () -> CartService.LineChange.apply(null, set(-1)));
+    }
+
+    private static CartService.LineChange fold(CartLineOperationDTO... ops) {
+        CartService.LineChange change = null;
+        for (CartLineOperationDTO op : ops) {
+            change = CartService.LineChange.apply(change, op);
+        }
+        return change;
+    }
+
+    private static CartLineOperationDTO delta(int delta) {
+        CartLineOperationDTO op = op(1L);
+        op.setDelta(delta);
+        return op;
+    }
+
+    private static CartLineOperationDTO set(int quantity) {
+        CartLineOperationDTO op = op(1L);
+        op.setSetQuantity(quantity);
+        return op;
+    }
+
+    private static CartLineOperationDTO remove() {
+        CartLineOperationDTO op = op(1L);
+        op.setRemove(true);
+        return op;
+    }
+
+    private static CartLineOperationDTO op(Long productId) {
+        CartLineOperationDTO op = new CartLineOperationDTO();
+        op.setProductId(productId);
+        return op;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.superdupermart.service;
+
+import com.example.superdupermart.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.rebuild(Arrays.asList(
+                product(1L, "Laptop Pro", "fast laptop"),
+                product(2L, "Laptop Air", "light laptop"),
+                product(3L, "Laptop Bag", null),
+                product(4L, "Mouse", "works with any laptop"),
+                product(5L, "Keyboard", "mechanical")
+        ));
+    }
+
+    @Test
+    void nameMatchesRankAboveDescriptionMatches() {
+        List<Long> ids = index.search("laptop", 10);
+        assertEquals(4, ids.size());
+        assertEquals(Long.valueOf(4L), ids.get(3));
+        // 名称和描述都命中的排在只有名称命中的前面，同分按 id 升序
+        assertEquals(Arrays.asList(1L, 2L), ids.subList(0, 2));
+    }
+
+    @Test
+    void limitCutsRankedList() {
+        assertEquals(Arrays.asList(1L, 2L), index.search("laptop", 2));
+    }
+
+    @Test
+    void typoMatchesByTrigramOverlap() {
+        assertEquals(Arrays.asList(5L), index.search("keybord", 10));
+    }
+
+    @Test
+    void filterSkipsTopHitsAndStillFillsLimit() {
+        // 排在最前的两个商品缺货：仍应返回 limit 个有库存的商品
+        Set<Long> outOfStock = new HashSet<>(Arrays.asList(1L, 2L));
+        List<Long> ids = index.search("laptop", 2, id -> !outOfStock.contains(id));
+        assertEquals(Arrays.asList(3L, 4L), ids);
+    }
+
+    @Test
+    void filterRejectingEverythingReturnsEmpty() {
+        assertTrue(index.search("laptop", 5, id -> false).isEmpty());
+    }
+
+    @Test
+    void updatedAndRemovedProductsLeaveTheIndex() {
+        index.index(product(3L, "Backpack", null));
+        index.remove(1L);
+        assertEquals(Arrays.asList(2L, 4L), index.search("laptop", 10));
+    }
+
+    @Test
+    void blankQueryReturnsNothing() {
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    private static Product product(Long id, String name, String description) {
+        Product p = new Product();
+        p.setProductId(id);
+        p.setName(name);
+        p.setDescription(description);
+        return p;
+    }
+}
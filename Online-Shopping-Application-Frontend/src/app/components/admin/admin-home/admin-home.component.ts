@@ -30,15 +30,24 @@ export class AdminHomeComponent implements OnInit {
   loadData(): void {
     // Load orders
     this.apiService.getAdminOrders().subscribe({
-      next: (orders) => {
-        this.orders = orders;
-        this.calculateTotalSoldItems(orders);
+      next: (page) => {
+        this.orders = page.items;
       },
       error: (error) => {
         this.snackBar.open('Failed to load orders', 'Close', { duration: 3000 });
       }
     });
 
+    // Total sold items comes from the server-side sales aggregate (the order list is paginated)
+    this.apiService.getTotalUnitsSold().subscribe({
+      next: (total) => {
+        this.totalSoldItems = total;
+      },
+      error: (error) => {
+        console.error('Failed to load total sold items', error);
+      }
+    });
+
     // Load most profitable product
     this.apiService.getMostProfitableProducts(1).subscribe({
       next: (products) => {
@@ -60,14 +69,6 @@ export class AdminHomeComponent implements OnInit {
     });
   }
 
-  calculateTotalSoldItems(orders: Order[]): void {
-    this.totalSoldItems = orders
-      .filter(order => order.orderStatus === 'Completed')
-      .reduce((total, order) => {
-        return total + order.items.reduce((sum, item) => sum + item.quantity, 0);
-      }, 0);
-  }
-
   viewOrder(orderId: number): void {
     this.router.navigate(['/admin/orders']);
   }
@@ -11,6 +11,7 @@ import { Order } from '../../../models/order.model';
 })
 export class AdminOrderManagementComponent implements OnInit {
   orders: Order[] = [];
+  nextCursor: number | null = null;
   displayedColumns: string[] = ['orderId', 'datePlaced', 'orderStatus', 'totalPrice', 'actions'];
 
   constructor(
@@ -25,8 +26,24 @@ export class AdminOrderManagementComponent implements OnInit {
 
   loadOrders(): void {
     this.apiService.getAdminOrders().subscribe({
-      next: (orders) => {
-        this.orders = orders;
+      next: (page) => {
+        this.orders = page.items;
+        this.nextCursor = page.nextCursor;
+      },
+      error: (error) => {
+        this.snackBar.open('Failed to load orders', 'Close', { duration: 3000 });
+      }
+    });
+  }
+
+  loadMoreOrders(): void {
+    if (!this.nextCursor) {
+      return;
+    }
+    this.apiService.getAdminOrders(this.nextCursor).subscribe({
+      next: (page) => {
+        this.orders = [...this.orders, ...page.items];
+        this.nextCursor = page.nextCursor;
       },
       error: (error) => {
         this.snackBar.open('Failed to load orders', 'Close', { duration: 3000 });
@@ -14,6 +14,7 @@ import { EditProductComponent } from '../edit-product/edit-product.component';
 })
 export class AdminProductManagementComponent implements OnInit {
   products: ProductDTO[] = [];
+  nextCursor: number | null = null;
   displayedColumns: string[] = ['productId', 'name', 'price', 'stock', 'wholesalePrice', 'actions'];
 
   constructor(
@@ -29,8 +30,24 @@ export class AdminProductManagementComponent implements OnInit {
 
   loadProducts(): void {
     this.apiService.getAllProducts().subscribe({
-      next: (products) => {
-        this.products = products;
+      next: (page) => {
+        this.products = page.items;
+        this.nextCursor = page.nextCursor;
+      },
+      error: (error) => {
+        this.snackBar.open('Failed to load products', 'Close', { duration: 3000 });
+      }
+    });
+  }
+
+  loadMoreProducts(): void {
+    if (!this.nextCursor) {
+      return;
+    }
+    this.apiService.getAllProducts(this.nextCursor).subscribe({
+      next: (page) => {
+        this.products = [...this.products, ...page.items];
+        this.nextCursor = page.nextCursor;
       },
       error: (error) => {
         this.snackBar.open('Failed to load products', 'Close', { duration: 3000 });
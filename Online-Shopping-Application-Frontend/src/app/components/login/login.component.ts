@@ -4,6 +4,8 @@ import { Router } from '@angular/router';
 import { MatSnackBar } from '@angular/material/snack-bar';
 import { AuthService } from '../../services/auth.service';
 import { ApiService } from '../../services/api.service';
+import { CartLocalStorageService } from '../../services/cart-local-storage.service';
+import { CartService } from '../../services/cart.service';
 
 @Component({
   selector: 'app-login',
@@ -19,6 +21,8 @@ export class LoginComponent {
     private fb: FormBuilder,
     private authService: AuthService,
     private apiService: ApiService,
+    private cartLocalStorage: CartLocalStorageService,
+    private cartService: CartService,
     private router: Router,
     private snackBar: MatSnackBar
   ) {
@@ -57,6 +61,7 @@ export class LoginComponent {
           const usernameFromResponse = response.username || (email?.split('@')[0] ?? '');
           this.authService.setUserInfo(response.token, response.role, email, response.userId, usernameFromResponse);
           this.snackBar.open('Login successful!', 'Close', { duration: 3000 });
+          this.syncGuestCart(response.userId);
           this.navigateAfterLogin(response.role);
         },
         error: (error) => {
@@ -106,6 +111,24 @@ export class LoginComponent {
     }
   }
 
+  // Merge the guest cart into the server cart in one request, then drop the local copy
+  private syncGuestCart(userId?: number): void {
+    const guestItems = this.cartLocalStorage.getCart();
+    if (!userId || guestItems.length === 0) {
+      return;
+    }
+    const items = guestItems.map(i => ({ productId: i.productId, quantity: i.quantity }));
+    this.apiService.syncCart(userId, { version: null, items }).subscribe({
+      next: () => {
+        this.cartLocalStorage.clearCart();
+        this.cartService.notifyUpdate();
+      },
+      error: (error) => {
+        console.error('Guest cart sync error:', error);
+      }
+    });
+  }
+
   private navigateAfterLogin(role: string): void {
     if (role === 'ADMIN') {
       this.router.navigate(['/admin/home']);
@@ -145,6 +145,7 @@ export class ProductDetailComponent implements OnInit {
     this.apiService.addToWatchlist(userId, this.product.productId).subscribe({
       next: () => {
         this.snackBar.open(`${this.product!.name} added to watchlist`, 'Close', { duration: 2000 });
+        this.product!.inWatchlist = true;
         this.watchlistService.notifyUpdate(); // Notify subscribers to refresh watchlist
       },
       error: (error) => {
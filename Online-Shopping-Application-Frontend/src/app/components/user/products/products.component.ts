@@ -14,6 +14,7 @@ import { ProductDTO } from '../../../models/product.model';
 })
 export class ProductsComponent implements OnInit {
   products: ProductDTO[] = [];
+  nextCursor: number | null = null;
   displayedColumns: string[] = ['productId', 'name', 'price', 'actions'];
   watchlistItems: any[] = [];
 
@@ -33,8 +34,24 @@ export class ProductsComponent implements OnInit {
 
   loadProducts(): void {
     this.apiService.getAllProducts().subscribe({
-      next: (products) => {
-        this.products = products;
+      next: (page) => {
+        this.products = page.items;
+        this.nextCursor = page.nextCursor;
+      },
+      error: (error) => {
+        this.snackBar.open('Failed to load products', 'Close', { duration: 3000 });
+      }
+    });
+  }
+
+  loadMoreProducts(): void {
+    if (!this.nextCursor) {
+      return;
+    }
+    this.apiService.getAllProducts(this.nextCursor).subscribe({
+      next: (page) => {
+        this.products = [...this.products, ...page.items];
+        this.nextCursor = page.nextCursor;
       },
       error: (error) => {
         this.snackBar.open('Failed to load products', 'Close', { duration: 3000 });
@@ -149,6 +166,7 @@ export class ProductsComponent implements OnInit {
     this.apiService.addToWatchlist(userId, product.productId).subscribe({
       next: () => {
         this.snackBar.open(`${product.name} added to watchlist`, 'Close', { duration: 2000 });
+        product.inWatchlist = true;
         this.watchlistService.notifyUpdate(); // Notify subscribers to refresh watchlist
         this.loadWatchlist(); // Also update local state
       },
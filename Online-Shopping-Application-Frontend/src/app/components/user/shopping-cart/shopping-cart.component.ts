@@ -4,7 +4,7 @@ import { Subscription } from 'rxjs';
 import { ApiService } from '../../../services/api.service';
 import { AuthService } from '../../../services/auth.service';
 import { CartService } from '../../../services/cart.service';
-import { CartItem } from '../../../models/cart.model';
+import { CartItem, CartResponse } from '../../../models/cart.model';
 
 @Component({
   selector: 'app-shopping-cart',
@@ -50,8 +50,7 @@ export class ShoppingCartComponent implements OnInit, OnDestroy {
     this.isLoading = true;
     this.apiService.getCart(userId).subscribe({
       next: (response) => {
-        this.cartItems = response.items || [];
-        this.totalPrice = response.totalPrice || 0;
+        this.applyCart(response);
         this.isLoading = false;
       },
       error: (error) => {
@@ -74,17 +73,19 @@ export class ShoppingCartComponent implements OnInit, OnDestroy {
       return;
     }
 
+    const item = this.cartItems.find(i => i.itemId === cartItemId);
+    if (!item) {
+      return;
+    }
     if (quantity <= 0) {
-      const item = this.cartItems.find(i => i.itemId === cartItemId);
-      if (item) {
-        this.removeItem(item.productId);
-      }
+      this.removeItem(item.productId);
       return;
     }
 
-    this.apiService.updateCartQuantity(cartItemId, quantity, userId).subscribe({
-      next: () => {
-        this.cartService.notifyUpdate();
+    // The response already contains the updated cart, so no reload is needed
+    this.apiService.updateCartLines(userId, [{ productId: item.productId, setQuantity: quantity }]).subscribe({
+      next: (response) => {
+        this.applyCart(response);
         this.snackBar.open('Quantity updated', 'Close', { duration: 2000 });
       },
       error: (error) => {
@@ -105,9 +106,9 @@ export class ShoppingCartComponent implements OnInit, OnDestroy {
       return;
     }
 
-    this.apiService.removeFromCart(productId, userId).subscribe({
-      next: () => {
-        this.cartService.notifyUpdate();
+    this.apiService.updateCartLines(userId, [{ productId, remove: true }]).subscribe({
+      next: (response) => {
+        this.applyCart(response);
         this.snackBar.open('Item removed from cart', 'Close', { duration: 2000 });
       },
       error: (error) => {
@@ -206,6 +207,11 @@ export class ShoppingCartComponent implements OnInit, OnDestroy {
     });
   }
 
+  private applyCart(response: CartResponse): void {
+    this.cartItems = response.items || [];
+    this.totalPrice = response.totalPrice || 0;
+  }
+
   getItemTotal(item: CartItem): number {
     return item.price * item.quantity;
   }
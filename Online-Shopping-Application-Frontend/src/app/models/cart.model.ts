@@ -6,10 +6,25 @@ export interface CartItem {
   price: number;
 }
 
+// One operation in PATCH /cart/lines: exactly one of delta, setQuantity or remove
+export interface CartLineOperation {
+  productId: number;
+  delta?: number;
+  setQuantity?: number;
+  remove?: boolean;
+}
+
 export interface CartResponse {
   userId: number;
   totalItems: number;
   totalPrice: number;
   items: CartItem[];
+  version?: number | null;
+}
+
+// Body of PUT /cart/sync: version null merges a guest cart into the server cart
+export interface CartSyncRequest {
+  version: number | null;
+  items: { productId: number; quantity: number }[];
 }
 
@@ -13,3 +13,8 @@ export interface Order {
   items: OrderItem[];
 }
 
+
+export interface OrderPage {
+  items: Order[];
+  nextCursor: number | null;
+}
@@ -5,6 +5,7 @@ export interface Product {
   stock: number | null;
   wholesalePrice?: number | null;
   description?: string;
+  inWatchlist?: boolean;
 }
 
 export interface ProductDTO {
@@ -14,5 +15,11 @@ export interface ProductDTO {
   price: number;
   stock: number | null;
   wholesalePrice?: number | null;
+  inWatchlist?: boolean;
 }
 
+
+export interface ProductPage {
+  items: ProductDTO[];
+  nextCursor: number | null;
+}
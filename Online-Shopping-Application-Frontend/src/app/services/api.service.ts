@@ -1,9 +1,9 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpHeaders, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { ProductDTO } from '../models/product.model';
-import { CartResponse, CartItem } from '../models/cart.model';
-import { Order } from '../models/order.model';
+import { ProductDTO, ProductPage } from '../models/product.model';
+import { CartResponse, CartItem, CartLineOperation, CartSyncRequest } from '../models/cart.model';
+import { Order, OrderPage } from '../models/order.model';
 import { WatchlistItem } from '../models/watchlist.model';
 import { Stats } from '../models/stats.model';
 import { User } from '../models/user.model';
@@ -50,8 +50,15 @@ export class ApiService {
   }
 
   // Product APIs
-  getAllProducts(): Observable<ProductDTO[]> {
-    return this.http.get<ProductDTO[]>(`${API_URL}/products/all`, { headers: this.getHeaders() });
+  getAllProducts(after?: number | null, limit?: number): Observable<ProductPage> {
+    let params = new HttpParams();
+    if (after) {
+      params = params.set('after', after.toString());
+    }
+    if (limit) {
+      params = params.set('limit', limit.toString());
+    }
+    return this.http.get<ProductPage>(`${API_URL}/products/all`, { headers: this.getHeaders(), params });
   }
 
   getProductById(productId: number): Observable<ProductDTO> {
@@ -88,6 +95,18 @@ export class ApiService {
     return this.http.patch<CartResponse>(`${API_URL}/cart/updateQuantity`, null, { headers: this.getHeaders(), params });
   }
 
+  // Apply several line changes in one request; returns the updated cart
+  updateCartLines(userId: number, operations: CartLineOperation[]): Observable<CartResponse> {
+    const params = new HttpParams().set('userId', userId.toString());
+    return this.http.patch<CartResponse>(`${API_URL}/cart/lines`, operations, { headers: this.getHeaders(), params });
+  }
+
+  // Send the local cart; the server applies only the differences and returns the merged cart
+  syncCart(userId: number, request: CartSyncRequest): Observable<CartResponse> {
+    const params = new HttpParams().set('userId', userId.toString());
+    return this.http.put<CartResponse>(`${API_URL}/cart/sync`, request, { headers: this.getHeaders(), params });
+  }
+
   removeFromCart(productId: number, userId: number): Observable<CartResponse> {
     const params = new HttpParams().set('userId', userId.toString());
     return this.http.delete<CartResponse>(`${API_URL}/cart/remove/${productId}`, { headers: this.getHeaders(), params });
@@ -104,12 +123,22 @@ export class ApiService {
     return this.http.post<{ message: string }>(`${API_URL}/orders`, body, { headers: this.getHeaders(), params });
   }
 
-  getAllOrders(userId?: number): Observable<Order[]> {
+  // With a userId, /orders/all returns that user's orders
+  getAllOrders(userId: number): Observable<Order[]> {
+    const params = new HttpParams().set('userId', userId.toString());
+    return this.http.get<Order[]>(`${API_URL}/orders/all`, { headers: this.getHeaders(), params });
+  }
+
+  // Admin without a userId: one page of all orders, newest first; pass nextCursor as `after` for the next page
+  getAllOrdersPage(after?: number | null, limit?: number): Observable<OrderPage> {
     let params = new HttpParams();
-    if (userId) {
-      params = params.set('userId', userId.toString());
+    if (after) {
+      params = params.set('after', after.toString());
     }
-    return this.http.get<Order[]>(`${API_URL}/orders/all`, { headers: this.getHeaders(), params });
+    if (limit) {
+      params = params.set('limit', limit.toString());
+    }
+    return this.http.get<OrderPage>(`${API_URL}/orders/all`, { headers: this.getHeaders(), params });
   }
 
   getOrderById(orderId: number): Observable<Order> {
@@ -168,8 +197,22 @@ export class ApiService {
     return this.http.delete<string>(`${API_URL}/admin/deleteUser/${userId}`, { headers: this.getHeaders(), responseType: 'text' as 'json' });
   }
 
-  getAdminOrders(): Observable<Order[]> {
-    return this.http.get<Order[]>(`${API_URL}/admin/orders`, { headers: this.getHeaders() });
+  getAdminOrders(after?: number | null, limit?: number, status?: string): Observable<OrderPage> {
+    let params = new HttpParams();
+    if (after) {
+      params = params.set('after', after.toString());
+    }
+    if (limit) {
+      params = params.set('limit', limit.toString());
+    }
+    if (status) {
+      params = params.set('status', status);
+    }
+    return this.http.get<OrderPage>(`${API_URL}/admin/orders`, { headers: this.getHeaders(), params });
+  }
+
+  getTotalUnitsSold(): Observable<number> {
+    return this.http.get<number>(`${API_URL}/admin/stats/unitsSold`, { headers: this.getHeaders() });
   }
 
   updateOrderStatus(orderId: number, status: string): Observable<string> {